@@ -26,6 +26,7 @@ package org.cometbid.sample.template.payroll;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 /**
@@ -33,6 +34,7 @@ import org.springframework.web.servlet.config.annotation.EnableWebMvc;
  * @author samueladebowale
  */
 @EnableWebMvc
+@EnableScheduling
 @ComponentScan(basePackages = "org.cometbid.sample.template.payroll")
 @SpringBootApplication
 public class PayrollAwsLambdaH2 {
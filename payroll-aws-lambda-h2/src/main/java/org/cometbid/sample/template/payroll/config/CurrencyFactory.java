@@ -67,9 +67,31 @@ public class CurrencyFactory {
         XPD("XPD"), XPF("XPF"), XPT("XPT"), XSU("XSU"), XTS("XTS"), XUA("XUA"), XXX("XXX"), YER("YER"), ZAR("ZAR"), ZMW("ZMW");
 
         private String iso4217Code = "";
+        private final int fractionDigits;
 
         Currency(String code) {
             this.iso4217Code = code;
+            this.fractionDigits = defaultFractionDigits(code);
+        }
+
+        /**
+         * Digits of the minor unit, amounts in minor units are the amount
+         * times ten to this power.
+         *
+         * @return 0 for currencies without a minor unit
+         */
+        public int getFractionDigits() {
+            return fractionDigits;
+        }
+
+        private static int defaultFractionDigits(String code) {
+            try {
+                // negative for pseudo currencies such as gold
+                return Math.max(java.util.Currency.getInstance(code).getDefaultFractionDigits(), 0);
+            } catch (IllegalArgumentException ex) {
+                // withdrawn codes the JDK does not know anymore
+                return 2;
+            }
         }
 
         @Override
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import lombok.extern.log4j.Log4j2;
+import org.cometbid.component.api.util.TimeZoneUtils;
+import org.cometbid.sample.template.payroll.employee.Employee;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Bodies of the reference-data endpoints, serialized once when the context
+ * starts, so before a SnapStart/CRaC checkpoint too. Each body is tagged
+ * with a hash of its bytes and may be cached by clients, a request only
+ * writes the bytes or answers 304.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+public class ReferenceDataResponses {
+
+    /**
+     * The precomputed responses.
+     */
+    public enum ReferenceData {
+        TIMEZONES, LOCALES, CURRENCIES, EMPLOYEE_FIELDS, MANDATORY_FIELDS, EMPLOYEE_FIELD_COUNT,
+        MANDATORY_FIELD_COUNT
+    }
+
+    private final Body[] bodies = new Body[ReferenceData.values().length];
+    private final CacheControl cacheControl;
+
+    public ReferenceDataResponses(ObjectMapper objectMapper, LocalizationFactory localizationFactory,
+            @Value("${api.reference-data.max-age:P1D}") Duration maxAge) throws JsonProcessingException {
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+
+        put(ReferenceData.TIMEZONES, objectMapper.writeValueAsBytes(TimeZoneUtils.getAvailableTimeZoneIds()));
+        put(ReferenceData.LOCALES, objectMapper.writeValueAsBytes(localizationFactory.getSystemLocales()));
+        put(ReferenceData.CURRENCIES, objectMapper.writeValueAsBytes(CurrencyFactory.Currency.getAllNames()));
+        put(ReferenceData.EMPLOYEE_FIELDS, objectMapper.writeValueAsBytes(Employee.getAllMappedFields()));
+        put(ReferenceData.MANDATORY_FIELDS, objectMapper.writeValueAsBytes(Employee.getMappedDefaultFields()));
+        // plain text bodies, as returned so far
+        put(ReferenceData.EMPLOYEE_FIELD_COUNT,
+                ("All fields Count: " + Employee.getAllMappedFields().size()).getBytes(StandardCharsets.UTF_8));
+        put(ReferenceData.MANDATORY_FIELD_COUNT,
+                ("Mandatory fields Count: " + Employee.getMappedDefaultFields().size()).getBytes(StandardCharsets.UTF_8));
+
+        long bytes = 0;
+        for (Body body : bodies) {
+            bytes += body.bytes.length;
+        }
+        log.info("{} reference-data responses precomputed, {} bytes", bodies.length, bytes);
+    }
+
+    /**
+     *
+     * @param data
+     * @param request
+     * @return the body, or null once 304 has been answered
+     */
+    public ResponseEntity<byte[]> respond(ReferenceData data, WebRequest request) {
+        Body body = bodies[data.ordinal()];
+
+        if (request.checkNotModified(body.etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(body.etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.bytes.length)
+                .body(body.bytes);
+    }
+
+    private void put(ReferenceData data, byte[] bytes) {
+        bodies[data.ordinal()] = new Body(bytes, "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+    }
+
+    private record Body(byte[] bytes, String etag) {
+
+    }
+}
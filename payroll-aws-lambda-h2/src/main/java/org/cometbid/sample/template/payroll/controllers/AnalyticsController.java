@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.controllers;
+
+import java.time.LocalDate;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.cometbid.component.api.generic.exceptions.BadRequestException;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.employee.EmployeeSalarySnapshot;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Payroll analytics answered from the in-memory salary snapshot.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@RestController
+@RequestMapping("/api/v1/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final EmployeeSalarySnapshot salarySnapshot;
+
+    /**
+     *
+     * @return employees and total annual salary per currency
+     */
+    @GetMapping("payroll-by-currency")
+    public ResponseEntity<Map<String, Object>> payrollByCurrency() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(salarySnapshot.payrollByCurrency());
+    }
+
+    /**
+     *
+     * @param currency reporting currency
+     * @return total annual salary of all employees in the reporting currency
+     */
+    @GetMapping("payroll-total")
+    public ResponseEntity<Map<String, Object>> payrollTotal(
+            @RequestParam(name = "currency", defaultValue = "${api.default.currency:USD}") String currency) {
+
+        CurrencyFactory.Currency target = CurrencyFactory.Currency.fromString(currency);
+        if (target == null) {
+            throw new BadRequestException("fx.currency.unknown", new Object[]{currency});
+        }
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(salarySnapshot.payrollIn(target));
+    }
+
+    /**
+     *
+     * @return average annual salary per employee type and currency
+     */
+    @GetMapping("salary-by-type")
+    public ResponseEntity<Map<String, Object>> averageSalaryByType() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(salarySnapshot.averageSalaryByType());
+    }
+
+    /**
+     *
+     * @param from first hire date included
+     * @param to last hire date included
+     * @return hires per month
+     */
+    @GetMapping("hires")
+    public ResponseEntity<Map<String, Object>> hiresByMonth(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(salarySnapshot.hiresByMonth(from, to));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.controllers;
+
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.cometbid.sample.template.payroll.employee.EmployeeCache;
+import org.cometbid.sample.template.payroll.employee.EmployeeCounters;
+import org.cometbid.sample.template.payroll.employee.EmployeeEmailFilter;
+import org.cometbid.sample.template.payroll.employee.EmployeeNameIndex;
+import org.cometbid.sample.template.payroll.employee.EmployeeSalarySnapshot;
+import org.cometbid.sample.template.payroll.employee.EmployeeSalaryStats;
+import org.cometbid.sample.template.payroll.employee.EmployeeSecondLevelCache;
+import org.cometbid.sample.template.payroll.fx.FxRateTable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Read-only view on the in-memory structures of this container.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@RestController
+@RequestMapping("/api/v1/diagnostics")
+@RequiredArgsConstructor
+public class DiagnosticsController {
+
+    private final EmployeeCache employeeCache;
+    private final EmployeeNameIndex employeeNameIndex;
+    private final EmployeeCounters employeeCounters;
+    private final EmployeeEmailFilter employeeEmailFilter;
+    private final EmployeeSecondLevelCache employeeSecondLevelCache;
+    private final EmployeeSalarySnapshot employeeSalarySnapshot;
+    private final EmployeeSalaryStats employeeSalaryStats;
+    private final FxRateTable fxRateTable;
+
+    /**
+     *
+     * @return
+     */
+    @GetMapping("employee-cache")
+    public ResponseEntity<Map<String, Object>> employeeCacheStats() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeCache.getStats());
+    }
+
+    /**
+     *
+     * @return
+     */
+    @GetMapping("name-index")
+    public ResponseEntity<Map<String, Object>> nameIndexStats() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeNameIndex.getStats());
+    }
+
+    /**
+     *
+     * @return
+     */
+    @GetMapping("email-filter")
+    public ResponseEntity<Map<String, Object>> emailFilterStats() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeEmailFilter.getStats());
+    }
+
+    /**
+     *
+     * @return
+     */
+    @GetMapping("salary-snapshot")
+    public ResponseEntity<Map<String, Object>> salarySnapshotStats() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeSalarySnapshot.getStats());
+    }
+
+    /**
+     * Hit, miss and put counts of the Hibernate second-level and query
+     * caches.
+     *
+     * @return
+     */
+    @GetMapping("hibernate-cache")
+    public ResponseEntity<Map<String, Object>> hibernateCacheStats() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeSecondLevelCache.getStats());
+    }
+
+    /**
+     * Base currency, age and refresh counts of the exchange rate table.
+     *
+     * @return
+     */
+    @GetMapping("fx-rates")
+    public ResponseEntity<Map<String, Object>> fxRateStats() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(fxRateTable.getStats());
+    }
+
+    /**
+     * Reloads the exchange rates without waiting for their TTL.
+     *
+     * @return
+     */
+    @PostMapping("fx-rates/refresh")
+    public ResponseEntity<Map<String, Object>> refreshFxRates() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(fxRateTable.refresh());
+    }
+
+    /**
+     * Rebuilds the salary snapshot the employee counters are read from.
+     *
+     * @return
+     */
+    @PostMapping("employee-counters/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileEmployeeCounters() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeCounters.reconcile());
+    }
+
+    /**
+     * Rebuilds the salary snapshot the salary aggregates are read from.
+     *
+     * @return
+     */
+    @PostMapping("salary-stats/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileSalaryStats() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeSalaryStats.reconcile());
+    }
+}
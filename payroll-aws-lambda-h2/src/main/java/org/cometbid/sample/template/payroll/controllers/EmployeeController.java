@@ -23,22 +23,46 @@
  */
 package org.cometbid.sample.template.payroll.controllers;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
-import java.util.Collection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.cometbid.component.ut.jpa.pagination.SimplePage;
+import org.cometbid.sample.template.payroll.config.ReferenceDataResponses;
+import org.cometbid.sample.template.payroll.config.ReferenceDataResponses.ReferenceData;
 import org.cometbid.sample.template.payroll.employee.CreateEmployeeRequest;
+import org.cometbid.sample.template.payroll.employee.CursorPage;
 import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeBatchResult;
+import org.cometbid.sample.template.payroll.employee.EmployeeCounters;
+import org.cometbid.sample.template.payroll.employee.EmployeeCursor;
+import org.cometbid.sample.template.payroll.employee.EmployeeExporter;
 import org.cometbid.sample.template.payroll.employee.EmployeeFinderService;
+import org.cometbid.sample.template.payroll.employee.EmployeeImportPipeline;
+import org.cometbid.sample.template.payroll.employee.EmployeeImportReport;
 import org.cometbid.sample.template.payroll.employee.EmployeeNameDTO;
 import org.cometbid.sample.template.payroll.employee.EmployeeRepository;
+import org.cometbid.sample.template.payroll.employee.EmployeeSalarySketches;
+import org.cometbid.sample.template.payroll.employee.EmployeeSalaryStats;
+import org.cometbid.sample.template.payroll.employee.EmployeeSearchCriteria;
 import org.cometbid.sample.template.payroll.employee.EmployeeService;
 import org.cometbid.sample.template.payroll.employee.EmployeeTypeDTO;
 import org.cometbid.sample.template.payroll.employee.UpdEmployeeRequest;
+import org.cometbid.sample.template.payroll.employee.EmployeeVersionTag;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -49,9 +73,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.cometbid.sample.template.payroll.employee.EmployeePagingUtil;
 
@@ -65,9 +92,18 @@ import org.cometbid.sample.template.payroll.employee.EmployeePagingUtil;
 @RequiredArgsConstructor
 public class EmployeeController {
 
+    private static final int MAX_TYPEAHEAD_LIMIT = 50;
+
     private final EmployeeService employeeService;
     private final EmployeeFinderService employeeFinderService;
     private final EmployeeRepository employeeRepository;
+    private final EmployeeCounters employeeCounters;
+    private final EmployeeSalaryStats employeeSalaryStats;
+    private final EmployeeSalarySketches employeeSalarySketches;
+    private final EmployeeExporter employeeExporter;
+    private final EmployeeImportPipeline employeeImportPipeline;
+    private final ObjectMapper objectMapper;
+    private final ReferenceDataResponses referenceDataResponses;
 
     /**
      *
@@ -76,7 +112,7 @@ public class EmployeeController {
     @GetMapping("count")
     public ResponseEntity<String> countEmployees() {
 
-        String response = "All employee Count: " + employeeRepository.count();
+        String response = "All employee Count: " + employeeCounters.total().orElseGet(employeeRepository::count);
 
         return ResponseEntity.ok()
                 .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
@@ -84,29 +120,114 @@ public class EmployeeController {
     }
 
     /**
+     * Total plus counts per employee type and per salary currency.
+     *
+     * @return
+     */
+    @GetMapping("count/breakdown")
+    public ResponseEntity<Map<String, Object>> countEmployeesBreakdown() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeCounters.getStats());
+    }
+
+    /**
+     * Count, sum, minimum and maximum salary per employee type and currency.
+     *
+     * @return
+     */
+    @GetMapping("stats")
+    public ResponseEntity<Map<String, Object>> salaryStats() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeSalaryStats.getStats());
+    }
+
+    /**
+     * Salary percentiles per employee type and currency.
+     *
+     * @return
+     */
+    @GetMapping("stats/percentiles")
+    public ResponseEntity<Map<String, Object>> salaryPercentiles() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeSalarySketches.getPercentiles());
+    }
+
+    /**
+     * The salary sketches of this instance, to be merged elsewhere.
      *
      * @return
      */
+    @GetMapping("stats/sketches")
+    public ResponseEntity<Map<String, String>> salarySketches() {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeSalarySketches.exportSketches());
+    }
+
+    /**
+     * Salary percentiles over this instance merged with the sketches of
+     * others.
+     *
+     * @param exports
+     * @return
+     */
+    @PostMapping(path = "stats/percentiles/merge", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> mergeSalaryPercentiles(@RequestBody List<Map<String, String>> exports) {
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(employeeSalarySketches.mergePercentiles(exports));
+    }
+
+    /**
+     * Multi-field search, the criteria come in the body while paging and
+     * sorting use the same query parameters as the listing.
+     *
+     * @param criteria
+     * @param qparams
+     * @return
+     */
     @PostMapping("search")
-    public ResponseEntity<String> searchEmployees() {
-        String response = "To be implemented soon...";
+    public ResponseEntity<SimplePage<Employee>> searchEmployees(@Valid @RequestBody EmployeeSearchCriteria criteria,
+            @RequestParam(required = false) Map<String, String> qparams) {
+        log.info("Search criteria: {}, request params: {}", criteria, qparams);
+
+        Pageable pageable = EmployeePagingUtil.preparePageRequest(qparams);
+
+        SimplePage<Employee> pagedEmployees = employeeFinderService.search(criteria, pageable);
 
         return ResponseEntity.ok()
                 .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                .body(response);
+                .body(pagedEmployees);
     }
 
     /**
+     * The page is tagged with a hash of its ids and versions, with
+     * If-None-Match only those are read to answer 304.
      *
      * @param qparams
+     * @param request
      * @return
      */
     @GetMapping
-    public ResponseEntity<SimplePage<Employee>> allEmployees(@RequestParam(required = false) Map<String, String> qparams) {
+    public ResponseEntity<SimplePage<Employee>> allEmployees(@RequestParam(required = false) Map<String, String> qparams,
+            WebRequest request) {
         log.info("Request params: {}", qparams);
 
         Pageable pageable = EmployeePagingUtil.preparePageRequest(qparams);
 
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(employeeFinderService.findPageTag(pageable))) {
+            return null;
+        }
+
         SimplePage<Employee> pagedEmployees = employeeFinderService.findAll(pageable);
         
         log.info("Total elements {}", pagedEmployees.getTotalElements()); 
@@ -120,20 +241,99 @@ public class EmployeeController {
         }
 
         return ResponseEntity.ok()
+                .eTag(EmployeeVersionTag.ofPage(pagedEmployees.getContent(), pagedEmployees.getTotalElements()))
+                .cacheControl(CacheControl.noCache())
                 .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
                 .body(pagedEmployees);
     }
 
     /**
+     * Keyset paging mode, selected by the presence of the cursor parameter.
+     * Start with an empty cursor and pass back the returned nextCursor to read
+     * the following page. The total count is only computed with count=true.
+     *
+     * @param qparams
+     * @return
+     */
+    @GetMapping(params = EmployeePagingUtil.CURSOR_PARAM)
+    public ResponseEntity<CursorPage<Employee>> allEmployeesByCursor(@RequestParam Map<String, String> qparams) {
+        log.info("Cursor request params: {}", qparams);
+
+        EmployeeCursor cursor = EmployeePagingUtil.prepareCursor(qparams);
+        int size = EmployeePagingUtil.preparePageSize(qparams);
+        boolean withTotal = EmployeePagingUtil.isCountRequested(qparams);
+
+        CursorPage<Employee> pagedEmployees = employeeFinderService.findAll(cursor, size, withTotal);
+        Long total = pagedEmployees.getTotalElements();
+
+        // compared with If-None-Match once the page is read, a match skips serialization
+        return ResponseEntity.ok()
+                .eTag(EmployeeVersionTag.ofPage(pagedEmployees.getContent(), total != null ? total : -1))
+                .cacheControl(CacheControl.noCache())
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(pagedEmployees);
+    }
+
+    /**
+     * Type-ahead over first, middle and last names, returns the ids of the
+     * best matching employees.
+     *
+     * @param query
+     * @param limit
+     * @return
+     */
+    @GetMapping("typeahead")
+    public ResponseEntity<List<String>> typeahead(@RequestParam("q") String query,
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+
+        List<String> empIds = employeeFinderService.typeahead(query, Math.clamp(limit, 1, MAX_TYPEAHEAD_LIMIT));
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(empIds);
+    }
+
+    /**
+     * Every employee as newline delimited JSON, written while the rows are
+     * read. Behind the API Gateway proxy handler the body is still buffered
+     * by the container before it is returned; a function URL with response
+     * streaming passes it through as it is written.
+     *
+     * @return
+     */
+    @GetMapping(path = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEmployees() {
+        StreamingResponseBody body = employeeExporter::writeNdjson;
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Tagged with the version of the employee. With If-None-Match only the
+     * version is looked up, a match answers 304 without loading the
+     * employee.
      *
      * @param employeeId
+     * @param request
      * @return
      */
     @GetMapping("/{empId}")
-    public ResponseEntity<Employee> searchEmployeesById(@PathVariable("empId") String employeeId) {
+    public ResponseEntity<Employee> searchEmployeesById(@PathVariable("empId") String employeeId, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            OptionalLong version = this.employeeFinderService.findVersionByEmpId(employeeId);
+
+            if (version.isPresent() && request.checkNotModified(EmployeeVersionTag.of(version.getAsLong()))) {
+                return null;
+            }
+        }
+
         Employee employee = this.employeeFinderService.findByEmpId(employeeId);
 
         return ResponseEntity.ok()
+                .eTag(EmployeeVersionTag.of(employee.getVersion()))
+                .cacheControl(CacheControl.noCache())
                 .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
                 .body(employee);
     }
@@ -156,6 +356,88 @@ public class EmployeeController {
                 .body(employee);
     }
 
+    /**
+     * Bulk creation from a JSON array, see
+     * {@link EmployeeService#saveEmployees(List)}.
+     *
+     * @param employeeDtos
+     * @return one result per item
+     */
+    @PostMapping(path = "batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<EmployeeBatchResult>> addEmployees(@RequestBody List<CreateEmployeeRequest> employeeDtos) {
+        List<EmployeeBatchResult> results = this.employeeService.saveEmployees(employeeDtos);
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(results);
+    }
+
+    /**
+     * Bulk creation from newline delimited JSON, one employee per line. A
+     * line that cannot be read is reported as an invalid item instead of
+     * failing the whole request.
+     *
+     * @param body
+     * @return one result per non blank line
+     * @throws IOException
+     */
+    @PostMapping(path = "batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<EmployeeBatchResult>> addEmployeesNdjson(InputStream body) throws IOException {
+        List<CreateEmployeeRequest> employeeDtos = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    employeeDtos.add(objectMapper.readValue(line, CreateEmployeeRequest.class));
+                } catch (JsonProcessingException ex) {
+                    log.info("Unreadable batch line {}: {}", employeeDtos.size(), ex.getOriginalMessage());
+                    employeeDtos.add(null);
+                }
+            }
+        }
+
+        return addEmployees(employeeDtos);
+    }
+
+    /**
+     * Imports a CSV file of any size, see
+     * {@link EmployeeImportPipeline#importCsv(InputStream)}.
+     *
+     * @param body
+     * @return counts and the rejected rows
+     * @throws IOException
+     */
+    @PostMapping(path = "import", consumes = EmployeeImportPipeline.TEXT_CSV_VALUE)
+    public ResponseEntity<EmployeeImportReport> importEmployeesCsv(InputStream body) throws IOException {
+        EmployeeImportReport report = employeeImportPipeline.importCsv(body);
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(report);
+    }
+
+    /**
+     * Imports newline delimited JSON of any size, see
+     * {@link EmployeeImportPipeline#importNdjson(InputStream)}.
+     *
+     * @param body
+     * @return counts and the rejected rows
+     * @throws IOException
+     */
+    @PostMapping(path = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<EmployeeImportReport> importEmployeesNdjson(InputStream body) throws IOException {
+        EmployeeImportReport report = employeeImportPipeline.importNdjson(body);
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(report);
+    }
+
     /**
      *
      * @param employeeId
@@ -173,15 +455,19 @@ public class EmployeeController {
     }
 
     /**
+     * With an If-Match header the update only applies to that version of the
+     * employee, otherwise 412 is returned.
      *
      * @param employeeId
      * @param employeeDto
+     * @param ifMatch
      * @return
      */
     @PatchMapping(path = "/{empId}/name")
     public ResponseEntity<String> updateEmployeeName(@PathVariable("empId") String employeeId,
-            @Valid @RequestBody EmployeeNameDTO employeeDto) {
-        this.employeeService.updateEmployeeName(employeeDto, employeeId);
+            @Valid @RequestBody EmployeeNameDTO employeeDto,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        this.employeeService.updateEmployeeName(employeeDto, employeeId, EmployeeVersionTag.parseIfMatch(ifMatch));
 
         String responseMessage = "Successfully updated Employee name to: " + employeeDto;
 
@@ -191,15 +477,19 @@ public class EmployeeController {
     }
 
     /**
+     * With an If-Match header the update only applies to that version of the
+     * employee, otherwise 412 is returned.
      *
      * @param employeeId
      * @param employeeDto
+     * @param ifMatch
      * @return
      */
     @PatchMapping(path = "/{empId}/type")
     public ResponseEntity<String> updateEmployeeType(@PathVariable("empId") String employeeId,
-            @Valid @RequestBody EmployeeTypeDTO employeeDto) {
-        this.employeeService.updateEmployeeType(employeeDto, employeeId);
+            @Valid @RequestBody EmployeeTypeDTO employeeDto,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        this.employeeService.updateEmployeeType(employeeDto, employeeId, EmployeeVersionTag.parseIfMatch(ifMatch));
 
         String responseMessage = "Successfully updated Employee type to: " + employeeDto;
 
@@ -210,54 +500,46 @@ public class EmployeeController {
 
     /**
      *
+     * @param request
      * @return
      */
     @GetMapping("all-fields")
-    public ResponseEntity<Collection<String>> allFields() {
-        Collection<String> coll = Employee.getAllMappedFields();
+    public ResponseEntity<byte[]> allFields(WebRequest request) {
 
-        return ResponseEntity.ok()
-                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                .body(coll);
+        return referenceDataResponses.respond(ReferenceData.EMPLOYEE_FIELDS, request);
     }
 
     /**
-     * 
-     * @return 
+     *
+     * @param request
+     * @return
      */
     @GetMapping("mandatory-fields")
-    public ResponseEntity<Collection<String>> defaultFields() {
-        Collection<String> coll = Employee.getMappedDefaultFields();
+    public ResponseEntity<byte[]> defaultFields(WebRequest request) {
 
-        return ResponseEntity.ok()
-                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                .body(coll);
+        return referenceDataResponses.respond(ReferenceData.MANDATORY_FIELDS, request);
     }
 
     /**
      *
+     * @param request
      * @return
      */
     @GetMapping("count-mandatory-fields")
-    public ResponseEntity<String> countFields() {
-        String responseMessage = "Mandatory fields Count: " + Employee.getMappedDefaultFields().size();
+    public ResponseEntity<byte[]> countFields(WebRequest request) {
 
-        return ResponseEntity.ok()
-                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                .body(responseMessage);
+        return referenceDataResponses.respond(ReferenceData.MANDATORY_FIELD_COUNT, request);
     }
 
     /**
      *
+     * @param request
      * @return
      */
     @GetMapping("count-all-fields")
-    public ResponseEntity<String> countAllFields() {
-        String responseMessage = "All fields Count: " + Employee.getAllMappedFields().size();
+    public ResponseEntity<byte[]> countAllFields(WebRequest request) {
 
-        return ResponseEntity.ok()
-                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                .body(responseMessage);
+        return referenceDataResponses.respond(ReferenceData.EMPLOYEE_FIELD_COUNT, request);
     }
 
     /**
@@ -267,9 +549,7 @@ public class EmployeeController {
      */
     @DeleteMapping("/{empId}")
     public ResponseEntity<String> deleteEmployeeById(@PathVariable("empId") String employeeId) {
-        Employee employee = this.employeeFinderService.findByEmpId(employeeId);
-
-        this.employeeService.deleteEmployee(employee);
+        this.employeeService.deleteEmployee(employeeId);
 
         String responseMessage = "Successfully deleted Employee with id: " + employeeId;
 
@@ -278,4 +558,20 @@ public class EmployeeController {
                 .body(responseMessage);
     }
 
+    /**
+     * Deletes the employees listed in the body with one statement and
+     * reports how many of them existed.
+     *
+     * @param employeeIds
+     * @return
+     */
+    @DeleteMapping("batch")
+    public ResponseEntity<Map<String, Integer>> deleteEmployeesById(@RequestBody List<String> employeeIds) {
+        int deleted = this.employeeService.deleteEmployees(employeeIds);
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(Map.of("requested", employeeIds.size(), "deleted", deleted));
+    }
+
 }
@@ -23,15 +23,14 @@
  */
 package org.cometbid.sample.template.payroll.controllers;
 
-import java.util.Map;
-import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.cometbid.sample.template.payroll.config.CurrencyFactory;
-import org.cometbid.component.api.util.TimeZoneUtils;
-import org.cometbid.sample.template.payroll.config.LocalizationFactory;
+import org.cometbid.sample.template.payroll.config.ReferenceDataResponses;
+import org.cometbid.sample.template.payroll.config.ReferenceDataResponses.ReferenceData;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  *
@@ -42,7 +41,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class HomeController {
     
-    private final LocalizationFactory localizationFactory;
+    private final ReferenceDataResponses referenceDataResponses;
 
     @GetMapping("/")
     public String index() {
@@ -50,18 +49,18 @@ public class HomeController {
     }
 
     @GetMapping("timezones")
-    public Set<String> timezones() {
-        return TimeZoneUtils.getAvailableTimeZoneIds();
+    public ResponseEntity<byte[]> timezones(WebRequest request) {
+        return referenceDataResponses.respond(ReferenceData.TIMEZONES, request);
     }
 
     @GetMapping("locales")
-    public Map<String, String> locales() {
-        return localizationFactory.getSystemLocales();
+    public ResponseEntity<byte[]> locales(WebRequest request) {
+        return referenceDataResponses.respond(ReferenceData.LOCALES, request);
     }
     
     @GetMapping("currencies")
-    public Set<String> currencies() {
-        return CurrencyFactory.Currency.getAllNames();
+    public ResponseEntity<byte[]> currencies(WebRequest request) {
+        return referenceDataResponses.respond(ReferenceData.CURRENCIES, request);
     }
 
 }
@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.controllers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.cometbid.sample.template.payroll.run.PayrollRunEngine;
+import org.cometbid.sample.template.payroll.run.PayrollRunReport;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@RestController
+@RequestMapping("/api/v1/payroll-runs")
+@RequiredArgsConstructor
+public class PayrollRunController {
+
+    private final PayrollRunEngine payrollRunEngine;
+
+    /**
+     * Runs the payroll of all employees and answers once it is complete. A
+     * Lambda function frozen after the response cannot keep working in the
+     * background, so long runs are started by invoking the function
+     * asynchronously (invocation type {@code Event}) with this request. A
+     * request while a run is in progress is answered with 409 Conflict.
+     *
+     * @return throughput and phase timings of the run
+     */
+    @PostMapping
+    public ResponseEntity<PayrollRunReport> runPayroll() {
+        PayrollRunReport report = payrollRunEngine.run();
+
+        return ResponseEntity.ok()
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .body(report);
+    }
+}
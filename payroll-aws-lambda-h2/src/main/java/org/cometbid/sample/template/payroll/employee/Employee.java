@@ -31,6 +31,7 @@ import com.google.gson.annotations.SerializedName;
 import io.hypersistence.utils.hibernate.type.money.MonetaryAmountType;
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Basic;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
@@ -43,6 +44,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import javax.money.MonetaryAmount;
@@ -54,8 +56,9 @@ import lombok.ToString;
 import org.cometbid.component.api.validators.MonetaryAmountPositive;
 import org.cometbid.component.api.validators.ValidEmail;
 import org.cometbid.component.ut.jpa.AbstractEntity;
-import org.cometbid.component.ut.jpa.InMemoryUniqueIdGenerator;
 import org.cometbid.component.api.jackson.MoneySerializer;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CompositeType;
 import org.springframework.data.domain.Sort;
 
@@ -66,11 +69,14 @@ import org.springframework.data.domain.Sort;
 @Data
 @Entity(name = "Employee")
 @Table(name = "employee")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Employee.CACHE_REGION)
+@Convert(attributeName = "id", converter = EmployeeId.Converter.class)
 @NoArgsConstructor
 @ToString(callSuper = true)
 @EqualsAndHashCode(onlyExplicitlyIncluded = true, callSuper = true)
 @JsonFormat(shape = JsonFormat.Shape.OBJECT)
-public class Employee extends AbstractEntity<EmployeeId> {
+public class Employee extends AbstractEntity<EmployeeId> implements EmployeeVersionView {
 
     @SerializedName(FIRST_NAME)
     @JsonProperty(FIRST_NAME)
@@ -162,11 +168,14 @@ public class Employee extends AbstractEntity<EmployeeId> {
         return this.id;
     }
 
+    @Override
     public long getVersion() {
         return this.version;
     }
 
     // ================================================================================
+    public static final String CACHE_REGION = "employee";
+
     public static final String DEFAULT_SORTFIELD = "employeeId";
     public static final Sort DEFAULT_SORT = Sort.by(DEFAULT_SORTFIELD);
 
@@ -243,11 +252,45 @@ public class Employee extends AbstractEntity<EmployeeId> {
         return all;
     }
 
+    /**
+     * Canonical form of an employee id. Ids are generated and stored upper
+     * case, lookups compare the plain column so that they can use its unique
+     * index.
+     *
+     * @param employeeId
+     * @return
+     */
+    public static String normalizeEmployeeId(String employeeId) {
+        return employeeId == null ? "" : employeeId.trim().toUpperCase(Locale.ROOT);
+    }
+
+    void assignId(EmployeeId id) {
+        this.id = id;
+    }
+
+    /**
+     * Detached copy of the persistent state, for holders that must not share
+     * the instance with their callers.
+     *
+     * @return
+     */
+    Employee copy() {
+        Employee copy = new Employee(id, firstName, middleName, lastName, email, empType, salary);
+        copy.employeeId = employeeId;
+        copy.creationDate = creationDate;
+        copy.version = version;
+        return copy;
+    }
+
+    /**
+     * Ids are assigned by {@link EmployeeIdAllocator} when an employee is
+     * built, this only fills in an id that is still missing.
+     */
     @Override
     protected void setId() {
-        Long empId = InMemoryUniqueIdGenerator.generateUniqueLongId();
-
-        this.id = new EmployeeId(empId);
+        if (this.id == null) {
+            EmployeeIdAllocator.sharedInstance().ifPresent(allocator -> this.id = allocator.nextId());
+        }
     }
 
 }
@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Outcome of one item of a batch request, {@code index} is the position of
+ * the item in the request.
+ *
+ * @author samueladebowale
+ * @param index
+ * @param status
+ * @param empId id of the created employee
+ * @param errors reasons the item was rejected
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EmployeeBatchResult(long index, Status status, String empId, List<String> errors) {
+
+    public enum Status {
+        CREATED, INVALID, DUPLICATE, FAILED
+    }
+
+    static EmployeeBatchResult created(long index, String empId) {
+        return new EmployeeBatchResult(index, Status.CREATED, empId, null);
+    }
+
+    static EmployeeBatchResult rejected(long index, Status status, List<String> errors) {
+        return new EmployeeBatchResult(index, status, null, errors);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Inserts employees through the persistence context directly so that
+ * Hibernate can group the INSERTs into JDBC batches, the context is flushed
+ * and cleared every JDBC batch to keep it small. Declared as a repository
+ * so that persistence exceptions are translated.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Repository
+public class EmployeeBatchWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int jdbcBatchSize;
+
+    EmployeeBatchWriter(PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int jdbcBatchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    /**
+     * Persists all employees in one transaction, either all or none of them
+     * are inserted.
+     *
+     * @param employees new, unmanaged employees
+     */
+    public void insert(List<Employee> employees) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < employees.size(); i++) {
+                entityManager.persist(employees.get(i));
+
+                if ((i + 1) % jdbcBatchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            // delivered to the listeners once the transaction commits
+            employees.forEach(employee -> eventPublisher.publishEvent(EmployeeChangedEvent.created(employee)));
+        });
+        log.info("Inserted {} employees", employees.size());
+    }
+}
@@ -23,7 +23,6 @@
  */
 package org.cometbid.sample.template.payroll.employee;
 
-import io.micrometer.common.util.StringUtils;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.text.ParseException;
@@ -32,7 +31,6 @@ import javax.money.MonetaryAmount;
 import javax.money.format.MonetaryAmountFormat;
 import javax.money.format.MonetaryFormats;
 import lombok.extern.log4j.Log4j2;
-import org.cometbid.component.api.util.RandomUtil;
 import org.cometbid.component.api.util.TimeZoneUtils;
 import static org.cometbid.sample.template.payroll.config.LocalizationFactory.getContextLocale;
 import org.javamoney.moneta.Money;
@@ -42,6 +40,7 @@ import org.mapstruct.Builder;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  *
@@ -61,22 +60,8 @@ public abstract class EmployeeBuilder {
     @Mapping(source = "toUpdate.employeeType", target = "empType")
     public abstract Employee updateEmployee(Employee employee, UpdEmployeeRequest toUpdate);
 
-    static String generateEmployeeIdBy(Employee emp) {
-
-        String firstName = emp.getFirstName();
-        String lastName = emp.getLastName();
-        String middleName = emp.getMiddleName();
-
-        String res1 = firstName.length() > 2 ? firstName.substring(0, 2) : "";
-        String res2 = StringUtils.isBlank(middleName) ? "" : middleName.substring(0, 1);
-        String res3 = lastName.length() > 2 ? lastName.substring(0, 2) : "";
-        String res4 = res1 + res2 + res3;
-
-        final String digits = RandomUtil.getRandomDigitsOnly(4);
-
-        String finalResult = res4 + digits;
-        return finalResult.toUpperCase();
-    }
+    @Autowired
+    protected EmployeeIdAllocator idAllocator;
 
     /*
     @BeforeMapping
@@ -100,8 +85,8 @@ public abstract class EmployeeBuilder {
 
     @AfterMapping
     protected void convertToEntity(@MappingTarget Employee employee) {
-        employee.setEmployeeId(generateEmployeeIdBy(employee));
-        employee.setId();
+        employee.setEmployeeId(idAllocator.nextEmployeeCode(employee));
+        employee.assignId(idAllocator.nextId());
 
         OffsetDateTime instZonedTime = TimeZoneUtils.getOffsetDateTimeInUTC();
         employee.setCreationDate(instZonedTime);
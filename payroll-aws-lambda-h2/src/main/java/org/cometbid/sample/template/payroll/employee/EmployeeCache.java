@@ -0,0 +1,186 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bounded read-through cache of employees keyed by the normalized employee
+ * id, see {@link Employee#normalizeEmployeeId(String)}.
+ * <p>
+ * Entries are evicted by size and by age. Every {@link EmployeeChangedEvent}
+ * invalidates the ids involved and stamps them; a load that started before
+ * the stamp may have read the row before the change and is refused instead
+ * of reinstating a stale entry. This also covers changes whose version is
+ * unknown. When the event carries the version it produced, that version is
+ * kept as a floor for cached entries as well.
+ * <p>
+ * The cache holds its own copies and hands out a new copy on every hit, a
+ * caller changing the employee it got does not change the cached entry or
+ * what other callers see.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+public class EmployeeCache {
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final Cache<String, Employee> employees;
+    // lowest version a cached entry may have, one per recently changed id
+    private final Cache<String, Long> versionFloors;
+    // stamp of the last invalidation, one per recently changed id
+    private final Cache<String, Long> invalidatedAt;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public EmployeeCache(@Value("${api.employee.cache.max-size:10000}") long maxSize,
+            @Value("${api.employee.cache.ttl:5m}") Duration ttl) {
+        this.employees = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.versionFloors = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.invalidatedAt = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     *
+     * @param employeeId
+     * @return
+     */
+    public Optional<Employee> get(String employeeId) {
+        return Optional.ofNullable(employees.getIfPresent(Employee.normalizeEmployeeId(employeeId)))
+                .map(Employee::copy);
+    }
+
+    /**
+     * Take the stamp before reading the employee from the database and pass
+     * it to {@link #put(Employee, long)}.
+     *
+     * @return stamp of the last invalidation
+     */
+    public long loadStamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches the employee unless it was changed after the load started, a
+     * newer version is already cached or a change with a newer version has
+     * been published meanwhile.
+     *
+     * @param employee
+     * @param loadStamp {@link #loadStamp()} taken before the load
+     * @return the employee passed in
+     */
+    public Employee put(Employee employee, long loadStamp) {
+        String key = Employee.normalizeEmployeeId(employee.getEmployeeId());
+        Long floor = versionFloors.getIfPresent(key);
+
+        if (!changedSince(key, loadStamp) && (floor == null || employee.getVersion() >= floor)) {
+            Employee copy = employee.copy();
+            employees.asMap().merge(key, copy,
+                    (cached, loaded) -> loaded.getVersion() >= cached.getVersion() ? loaded : cached);
+
+            // an invalidation that ran between the check and the merge did not see the entry
+            if (changedSince(key, loadStamp)) {
+                employees.asMap().remove(key, copy);
+            }
+        }
+        return employee;
+    }
+
+    private boolean changedSince(String key, long loadStamp) {
+        Long stamp = invalidatedAt.getIfPresent(key);
+        return stamp != null && stamp > loadStamp;
+    }
+
+    /**
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        EmployeeState before = event.before();
+        EmployeeState after = event.after();
+
+        if (before != null) {
+            invalidate(before.employeeId(), after == null ? DELETED : before.version() + 1);
+        }
+        if (after != null) {
+            invalidate(after.employeeId(), after.version());
+        }
+        if (event.changeType() == EmployeeChangedEvent.ChangeType.DELETED) {
+            invalidate(event.employeeId(), DELETED);
+        }
+    }
+
+    private void invalidate(String employeeId, long minVersion) {
+        if (employeeId == null) {
+            return;
+        }
+
+        String key = Employee.normalizeEmployeeId(employeeId);
+        invalidatedAt.asMap().merge(key, invalidations.incrementAndGet(), Math::max);
+        // a negative version is unknown, the stamp alone keeps older loads out
+        if (minVersion >= 0) {
+            versionFloors.asMap().merge(key, minVersion, Math::max);
+        }
+        employees.invalidate(key);
+    }
+
+    /**
+     *
+     * @return hit, miss and eviction counters of the cache
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = employees.stats();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", employees.size());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+}
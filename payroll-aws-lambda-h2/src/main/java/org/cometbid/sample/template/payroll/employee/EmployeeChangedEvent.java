@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+/**
+ * Published by {@link EmployeeServiceImpl} after every successful write, so
+ * that in-memory structures derived from the employee table (indexes,
+ * caches, counters) can follow the table without polling it.
+ *
+ * @author samueladebowale
+ * @param changeType
+ * @param employeeId
+ * @param before state before the change, null on creation and on changes
+ * made without loading the employee
+ * @param after state after the change, null on deletion
+ */
+public record EmployeeChangedEvent(ChangeType changeType, String employeeId,
+        EmployeeState before, EmployeeState after) {
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    /**
+     *
+     * @param created
+     * @return
+     */
+    public static EmployeeChangedEvent created(Employee created) {
+        EmployeeState after = EmployeeState.of(created);
+
+        return new EmployeeChangedEvent(ChangeType.CREATED, after.employeeId(), null, after);
+    }
+
+    /**
+     *
+     * @param before
+     * @param updated
+     * @return
+     */
+    public static EmployeeChangedEvent updated(EmployeeState before, Employee updated) {
+        EmployeeState after = EmployeeState.of(updated);
+
+        return new EmployeeChangedEvent(ChangeType.UPDATED, after.employeeId(), before, after);
+    }
+
+    /**
+     * Change applied by a single statement: the previous state is unknown
+     * and {@code after} only carries the changed attributes, with a negative
+     * version when the new version is unknown.
+     *
+     * @param after
+     * @return
+     */
+    public static EmployeeChangedEvent updated(EmployeeState after) {
+        return new EmployeeChangedEvent(ChangeType.UPDATED, after.employeeId(), null, after);
+    }
+
+    /**
+     * Deletion by id, the deleted state is unknown.
+     *
+     * @param employeeId
+     * @return
+     */
+    public static EmployeeChangedEvent deleted(String employeeId) {
+        return new EmployeeChangedEvent(ChangeType.DELETED, employeeId, null, null);
+    }
+}
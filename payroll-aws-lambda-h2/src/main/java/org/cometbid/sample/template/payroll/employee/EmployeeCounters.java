@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Employee counts read from the {@link EmployeeSalarySnapshot}: the total
+ * plus a breakdown per employee type and per salary currency, all served
+ * without touching the table.
+ *
+ * @author samueladebowale
+ */
+@Component
+@RequiredArgsConstructor
+public class EmployeeCounters {
+
+    private final EmployeeSalarySnapshot salarySnapshot;
+
+    /**
+     *
+     * @return empty until the snapshot has been built
+     */
+    public OptionalLong total() {
+        return salarySnapshot.employeeCount();
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        OptionalLong total = salarySnapshot.employeeCount();
+        Optional<long[]> counts = salarySnapshot.employeeCountsByBucket();
+
+        Map<String, Long> byType = new LinkedHashMap<>();
+        Map<String, Long> byCurrency = new LinkedHashMap<>();
+        counts.ifPresent(buckets -> {
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] > 0) {
+                    byType.merge(EmployeeSalarySnapshot.bucketType(i).getValue(), buckets[i], Long::sum);
+                    byCurrency.merge(EmployeeSalarySnapshot.bucketCurrency(i).toString(), buckets[i], Long::sum);
+                }
+            }
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", total.isPresent() ? total.getAsLong() : null);
+        result.put("byType", byType);
+        result.put("byCurrency", byCurrency);
+        result.put("stale", total.isEmpty());
+        result.put("lastReconciled", salarySnapshot.getLastRebuilt());
+        return result;
+    }
+
+    /**
+     * Rebuilds the salary snapshot from the table.
+     *
+     * @return the counters after the rebuild
+     */
+    public Map<String, Object> reconcile() {
+        salarySnapshot.rebuild();
+
+        return getStats();
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+import org.cometbid.component.api.generic.exceptions.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Opaque continuation token for keyset (seek) paging over the employee table.
+ * <p>
+ * A cursor carries the sort it was created with and, once a page has been
+ * served, the sort key values of the last row of that page. The next page is
+ * then read with a {@code WHERE (k1, k2, ...) > (v1, v2, ...)} predicate
+ * instead of an offset, so its cost does not grow with the page number.
+ *
+ * @author samueladebowale
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class EmployeeCursor {
+
+    private static final String KEY_SEPARATOR = "&";
+    private static final String PART_SEPARATOR = ":";
+
+    /**
+     * Entity attributes that can take part in a keyset sort. Only non-null
+     * columns qualify, a NULL sort key would break the row value comparison.
+     */
+    static final Map<String, Function<Employee, String>> KEYSET_PROPERTIES = Map.of(
+            Employee.DEFAULT_SORTFIELD, Employee::getEmployeeId,
+            "firstName", Employee::getFirstName,
+            "lastName", Employee::getLastName,
+            "email", Employee::getEmail,
+            "empType", e -> e.getEmpType().getValue(),
+            "creationDate", e -> e.getCreationDate().toString());
+
+    /**
+     * Json field names accepted in the sort parameters for attributes whose
+     * entity name differs.
+     */
+    static final Map<String, String> PROPERTY_ALIASES = Map.of(
+            Employee.EMPLOYEE_ID, Employee.DEFAULT_SORTFIELD,
+            Employee.CREATION_DATETIME, "creationDate");
+
+    private final List<Key> keys;
+
+    private EmployeeCursor(List<Key> keys) {
+        this.keys = Collections.unmodifiableList(keys);
+    }
+
+    /**
+     *
+     * @param property
+     * @param direction
+     * @param value last value served, null on the first page
+     */
+    public record Key(String property, Sort.Direction direction, String value) {
+
+    }
+
+    /**
+     * Creates the cursor for the first page of the given sort. The employee id
+     * is appended as a tie-breaker whenever the sort does not already include
+     * it, so that the key is unique.
+     *
+     * @param sort
+     * @return
+     */
+    public static EmployeeCursor first(Sort sort) {
+        List<Key> keys = new ArrayList<>();
+        boolean unique = false;
+
+        for (Sort.Order order : sort) {
+            String property = PROPERTY_ALIASES.getOrDefault(order.getProperty(), order.getProperty());
+
+            if (!KEYSET_PROPERTIES.containsKey(property)) {
+                throw new BadRequestException("pagination.cursor.sortNotSupported", new Object[]{order.getProperty()});
+            }
+            if (keys.stream().noneMatch(k -> k.property().equals(property))) {
+                keys.add(new Key(property, order.getDirection(), null));
+            }
+            unique |= Employee.DEFAULT_SORTFIELD.equals(property);
+        }
+
+        if (!unique) {
+            keys.add(new Key(Employee.DEFAULT_SORTFIELD, Sort.Direction.ASC, null));
+        }
+        return new EmployeeCursor(keys);
+    }
+
+    /**
+     * Creates the cursor positioned right after the given row.
+     *
+     * @param last last employee of the page just served
+     * @return
+     */
+    public EmployeeCursor after(Employee last) {
+        List<Key> next = new ArrayList<>(keys.size());
+
+        for (Key key : keys) {
+            String value = KEYSET_PROPERTIES.get(key.property()).apply(last);
+            next.add(new Key(key.property(), key.direction(), value));
+        }
+        return new EmployeeCursor(next);
+    }
+
+    /**
+     *
+     * @return true when no row has been served with this cursor yet
+     */
+    public boolean isFirst() {
+        return keys.get(0).value() == null;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Sort getSort() {
+        return Sort.by(keys.stream()
+                .map(k -> new Sort.Order(k.direction(), k.property()))
+                .toList());
+    }
+
+    /**
+     *
+     * @return url safe representation of this cursor
+     */
+    public String encode() {
+        List<String> parts = new ArrayList<>(keys.size());
+
+        for (Key key : keys) {
+            String value = key.value() == null ? "" : URLEncoder.encode(key.value(), StandardCharsets.UTF_8);
+            parts.add(key.property() + PART_SEPARATOR + key.direction().name() + PART_SEPARATOR + value);
+        }
+
+        byte[] raw = String.join(KEY_SEPARATOR, parts).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     *
+     * @param token value previously returned by {@link #encode()}
+     * @return
+     */
+    public static EmployeeCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            List<Key> keys = new ArrayList<>();
+
+            for (String part : raw.split(KEY_SEPARATOR)) {
+                String[] fields = part.split(PART_SEPARATOR, 3);
+                if (fields.length != 3 || !KEYSET_PROPERTIES.containsKey(fields[0])) {
+                    throw new IllegalArgumentException("Malformed cursor key: " + part);
+                }
+
+                String value = StringUtils.isEmpty(fields[2]) ? null : URLDecoder.decode(fields[2], StandardCharsets.UTF_8);
+                Key key = new Key(fields[0], Sort.Direction.valueOf(fields[1]), value);
+                if (value != null && typedValue(key) == null) {
+                    throw new IllegalArgumentException("Unknown cursor value: " + value);
+                }
+                keys.add(key);
+            }
+
+            boolean consistent = keys.stream().allMatch(k -> k.value() == null)
+                    || keys.stream().noneMatch(k -> k.value() == null);
+            if (keys.isEmpty() || !consistent) {
+                throw new IllegalArgumentException("Incomplete cursor: " + raw);
+            }
+            return new EmployeeCursor(keys);
+        } catch (IllegalArgumentException | DateTimeException ex) {
+            throw new BadRequestException("pagination.cursor.invalid", new Object[]{token});
+        }
+    }
+
+    /**
+     * Converts a cursor value back to the java type of its attribute.
+     *
+     * @param key
+     * @return
+     */
+    static Comparable<?> typedValue(Key key) {
+        return switch (key.property()) {
+            case "empType" ->
+                EmployeeType.fromString(key.value());
+            case "creationDate" ->
+                OffsetDateTime.parse(key.value());
+            default ->
+                key.value();
+        };
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bloom filter over the emails of all employees. A negative answer is
+ * definite and lets the create path skip the existence query, a positive
+ * one still has to be confirmed by the database (and, ultimately, by the
+ * unique email index).
+ * <p>
+ * The filter is built when the application is ready and follows creations
+ * afterwards. Deleted emails cannot be removed, they only cost a query
+ * until the next rebuild. Until the first build completes every email is
+ * reported as possibly present.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+public class EmployeeEmailFilter {
+
+    private final EmployeeRepository employeeRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private volatile BloomFilter<String> filter;
+    // filter being built, receives the emails created meanwhile
+    private volatile BloomFilter<String> building;
+
+    private final LongAdder definiteNegatives = new LongAdder();
+    private final LongAdder confirmedPositives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public EmployeeEmailFilter(EmployeeRepository employeeRepository, PlatformTransactionManager transactionManager,
+            @Value("${api.employee.email-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${api.employee.email-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.employeeRepository = employeeRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Builds a new filter from a streaming read of the email column, sized
+     * for at least twice the current number of employees.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        long size = Math.max(expectedInsertions, employeeRepository.count() * 2);
+
+        BloomFilter<String> fresh = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                size, falsePositiveProbability);
+        building = fresh;
+
+        try {
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<String> emails = employeeRepository.streamAllEmails()) {
+                    emails.forEach(fresh::put);
+                }
+            });
+            filter = fresh;
+        } finally {
+            building = null;
+        }
+
+        log.info("Employee email filter built in {} ms for {} emails, expected false positive rate {}",
+                (System.nanoTime() - start) / 1_000_000, fresh.approximateElementCount(), fresh.expectedFpp());
+    }
+
+    /**
+     *
+     * @param email
+     * @return false when no employee has this email
+     */
+    public boolean mightContain(String email) {
+        BloomFilter<String> current = filter;
+
+        if (current != null && !current.mightContain(email)) {
+            definiteNegatives.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records the database answer for an email the filter reported as
+     * possibly present.
+     *
+     * @param exists
+     */
+    public void recordCheck(boolean exists) {
+        if (filter == null) {
+            return;
+        }
+        (exists ? confirmedPositives : falsePositives).increment();
+    }
+
+    /**
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        EmployeeState after = event.after();
+
+        if (after == null || after.email() == null) {
+            return;
+        }
+
+        BloomFilter<String> current = filter;
+        BloomFilter<String> next = building;
+        if (current != null) {
+            current.put(after.email());
+        }
+        if (next != null) {
+            next.put(after.email());
+        }
+    }
+
+    /**
+     * The observed false positive rate is measured over the emails that
+     * turned out to be absent.
+     *
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        BloomFilter<String> current = filter;
+        long negatives = definiteNegatives.sum();
+        long falsePositive = falsePositives.sum();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ready", current != null);
+        result.put("approximateElementCount", current == null ? 0 : current.approximateElementCount());
+        result.put("expectedFalsePositiveRate", current == null ? 0 : current.expectedFpp());
+        result.put("definiteNegatives", negatives);
+        result.put("confirmedPositives", confirmedPositives.sum());
+        result.put("falsePositives", falsePositive);
+        result.put("observedFalsePositiveRate",
+                negatives + falsePositive == 0 ? 0 : (double) falsePositive / (negatives + falsePositive));
+        return result;
+    }
+}
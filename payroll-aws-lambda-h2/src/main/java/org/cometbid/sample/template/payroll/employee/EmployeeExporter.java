@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes every employee as newline delimited JSON, one object per line,
+ * straight from a database cursor. Each row is detached once written so the
+ * persistence context, and with it the memory used, stays the same size
+ * whatever the size of the table.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+public class EmployeeExporter {
+
+    private static final int FLUSH_EVERY = Integer.parseInt(EmployeeRepository.STREAM_FETCH_SIZE);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final EmployeeRepository employeeRepository;
+    private final ObjectMapper objectMapper;
+    // one object per line without the default space between root values,
+    // flushed per fetch rather than per object
+    private final ObjectWriter lineWriter;
+    private final TransactionTemplate readOnlyTx;
+
+    public EmployeeExporter(EmployeeRepository employeeRepository, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager) {
+        this.employeeRepository = employeeRepository;
+        this.objectMapper = objectMapper;
+        this.lineWriter = objectMapper.writer()
+                .withRootValueSeparator("")
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * Streams all employees to the given output, which is flushed every
+     * fetch and left open.
+     *
+     * @param out
+     * @return number of employees written
+     */
+    public long writeNdjson(OutputStream out) {
+        long start = System.nanoTime();
+
+        Long written = readOnlyTx.execute(status -> {
+            long count = 0;
+
+            try (Stream<Employee> employees = employeeRepository.streamAll();
+                    JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+                Iterator<Employee> it = employees.iterator();
+                while (it.hasNext()) {
+                    Employee employee = it.next();
+                    lineWriter.writeValue(generator, employee);
+                    generator.writeRaw('\n');
+                    entityManager.detach(employee);
+
+                    if (++count % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return count;
+        });
+
+        log.info("Exported {} employees in {} ms", written, (System.nanoTime() - start) / 1_000_000);
+        return written;
+    }
+}
@@ -23,6 +23,8 @@
  */
 package org.cometbid.sample.template.payroll.employee;
 
+import java.util.List;
+import java.util.OptionalLong;
 import org.cometbid.component.ut.jpa.pagination.SimplePage;
 import org.springframework.data.domain.Pageable;
 
@@ -34,6 +36,16 @@ public interface EmployeeFinderService {
 
     SimplePage<Employee> findAll(Pageable pageable);
 
+    CursorPage<Employee> findAll(EmployeeCursor cursor, int size, boolean withTotal);
+
+    SimplePage<Employee> search(EmployeeSearchCriteria criteria, Pageable pageable);
+
     Employee findByEmpId(String employeeId);
 
+    OptionalLong findVersionByEmpId(String employeeId);
+
+    String findPageTag(Pageable pageable);
+
+    List<String> typeahead(String query, int limit);
+
 }
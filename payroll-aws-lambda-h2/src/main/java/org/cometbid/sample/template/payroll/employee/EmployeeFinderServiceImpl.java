@@ -23,16 +23,20 @@
  */
 package org.cometbid.sample.template.payroll.employee;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.cometbid.component.api.employee.exceptions.EmployeeNotFoundException;
 import org.cometbid.component.ut.jpa.pagination.SimplePage;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 /**
@@ -44,9 +48,17 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class EmployeeFinderServiceImpl implements EmployeeFinderService {
 
+    static final int MAX_PAGE_SIZE = 500;
+
     private final EmployeeRepository employeeRepository;
+    private final EmployeeNameIndex employeeNameIndex;
+    private final EmployeeCache employeeCache;
+    private final EmployeeCounters employeeCounters;
 
     /**
+     * Read-through: served from the employee cache, loaded and cached on a
+     * miss. The cache stamp is taken before the load so that a change
+     * committed while loading keeps the loaded employee out of the cache.
      *
      * @param employeeId
      * @return
@@ -55,18 +67,66 @@ public class EmployeeFinderServiceImpl implements EmployeeFinderService {
     public Employee findByEmpId(String employeeId) {
         log.info("Getting employee with id {}", employeeId);
 
-        return employeeRepository.findByEmployeeIdIgnoreCase(employeeId)
-                .orElseThrow(() -> new EmployeeNotFoundException(
-                "employee.notfound.byEmpId", new Object[]{employeeId}));
+        return employeeCache.get(employeeId).orElseGet(() -> {
+            long loadStamp = employeeCache.loadStamp();
+
+            return employeeCache.put(employeeRepository.findByEmployeeId(Employee.normalizeEmployeeId(employeeId))
+                    .orElseThrow(() -> new EmployeeNotFoundException(
+                    "employee.notfound.byEmpId", new Object[]{employeeId})), loadStamp);
+        });
+    }
+
+    /**
+     * Version of an employee for conditional requests, from the employee
+     * cache or a version-only lookup, the employee is not loaded.
+     *
+     * @param employeeId
+     * @return empty if there is no such employee
+     */
+    @Override
+    public OptionalLong findVersionByEmpId(String employeeId) {
+        Optional<Employee> cached = employeeCache.get(employeeId);
+        if (cached.isPresent()) {
+            return OptionalLong.of(cached.get().getVersion());
+        }
+
+        return employeeRepository.findVersionByEmployeeId(Employee.normalizeEmployeeId(employeeId))
+                .map(OptionalLong::of)
+                .orElseGet(OptionalLong::empty);
     }
 
     /**
+     * Entity tag of the page {@link #findAll(Pageable)} returns, from the ids
+     * and versions of the page only.
+     *
+     * @param pageable
+     * @return
+     */
+    @Override
+    public String findPageTag(Pageable pageable) {
+        Slice<EmployeeVersionView> versions = employeeRepository.findVersionsBy(pageable);
+        long total = employeeCounters.total().orElseGet(employeeRepository::count);
+
+        return EmployeeVersionTag.ofPage(versions.getContent(), total);
+    }
+
+    /**
+     * Once the maintained counters are seeded the total comes from them and
+     * only the requested slice is read, otherwise falls back to a count
+     * query.
      *
      * @param pageable
      * @return
      */
     @Override
     public SimplePage<Employee> findAll(Pageable pageable) {
+        OptionalLong total = employeeCounters.total();
+
+        if (total.isPresent()) {
+            Slice<Employee> slice = employeeRepository.findAllBy(pageable);
+
+            return new SimplePage<>(slice.getContent(), pageable, total.getAsLong());
+        }
 
         Page<Employee> page = employeeRepository.findAll(pageable);
 
@@ -79,24 +139,67 @@ public class EmployeeFinderServiceImpl implements EmployeeFinderService {
     }
 
     /**
+     * Keyset paging: reads one row more than requested to find out whether a
+     * next page exists, and only reports the total when asked to, from the
+     * maintained counters once they are seeded. The page size is clamped to
+     * {@link #MAX_PAGE_SIZE}.
      *
-     * @param page
+     * @param cursor
      * @param size
+     * @param withTotal
+     * @return
+     */
+    @Override
+    public CursorPage<Employee> findAll(EmployeeCursor cursor, int size, boolean withTotal) {
+
+        int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        List<Employee> rows = employeeRepository.findNextByCursor(cursor, limit + 1);
+
+        boolean hasNext = rows.size() > limit;
+        List<Employee> content = hasNext ? new ArrayList<>(rows.subList(0, limit)) : rows;
+
+        return CursorPage.<Employee>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext && !content.isEmpty()
+                        ? cursor.after(content.get(content.size() - 1)).encode() : null)
+                .totalElements(withTotal ? employeeCounters.total().orElseGet(employeeRepository::count) : null)
+                .build();
+    }
+
+    /**
+     *
+     * @param criteria
+     * @param pageable
      * @return
      */
-    public Page<Employee> getEmployees(int page, int size) {
-        Pageable pageRequest = createPageRequestUsing(page, size);
+    @Override
+    public SimplePage<Employee> search(EmployeeSearchCriteria criteria, Pageable pageable) {
+        log.info("Searching employees matching {}", criteria);
 
-        List<Employee> allEmployees = employeeRepository.findAll();
-        int start = (int) pageRequest.getOffset();
-        int end = Math.min((start + pageRequest.getPageSize()), allEmployees.size());
+        Page<Employee> page = employeeRepository.findAll(EmployeeSpecifications.matching(criteria), pageable);
 
-        List<Employee> pageContent = allEmployees.subList(start, end);
-        return new PageImpl<>(pageContent, pageRequest, allEmployees.size());
+        return new SimplePage<>(page.getContent(), pageable, page.getTotalElements());
     }
 
-    private Pageable createPageRequestUsing(int page, int size) {
-        return PageRequest.of(page, size);
+    /**
+     * Answers from the in-memory name index, falls back to a last name
+     * prefix query while the index is unavailable.
+     *
+     * @param query
+     * @param limit
+     * @return
+     */
+    @Override
+    public List<String> typeahead(String query, int limit) {
+
+        return employeeNameIndex.search(query, limit)
+                .orElseGet(() -> employeeRepository.findByLastNameStartingWith(query.trim(),
+                PageRequest.of(0, limit, Sort.by(Employee.LAST_NAME, Employee.DEFAULT_SORTFIELD)))
+                .stream()
+                .map(EmployeeNameView::getEmployeeId)
+                .toList());
     }
 
 }
@@ -23,6 +23,7 @@
  */
 package org.cometbid.sample.template.payroll.employee;
 
+import jakarta.persistence.AttributeConverter;
 import org.cometbid.component.ut.jpa.AbstractEntityId;
 
 /**
@@ -37,4 +38,22 @@ public class EmployeeId extends AbstractEntityId<Long> {
     public EmployeeId(long id) {
         super(id);
     }
+
+    /**
+     * Stores the id as its long value in a BIGINT column instead of a
+     * serialized object. Applied explicitly where an entity maps its id.
+     */
+    @jakarta.persistence.Converter
+    public static class Converter implements AttributeConverter<EmployeeId, Long> {
+
+        @Override
+        public Long convertToDatabaseColumn(EmployeeId attribute) {
+            return attribute != null ? attribute.getId() : null;
+        }
+
+        @Override
+        public EmployeeId convertToEntityAttribute(Long dbData) {
+            return dbData != null ? new EmployeeId(dbData) : null;
+        }
+    }
 }
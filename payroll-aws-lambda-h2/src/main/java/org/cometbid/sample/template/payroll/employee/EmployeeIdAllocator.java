@@ -0,0 +1,227 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Allocates the primary keys and the human readable codes of new employees.
+ * <p>
+ * Primary keys come from a {@link SnowflakeIdGenerator} whose worker id is
+ * leased from the {@code employee_worker_seq} database sequence, so up to
+ * 1024 instances started since the sequence last wrapped have distinct
+ * worker ids. Codes are a prefix
+ * built from the name followed by a number drawn from a block of numbers
+ * reserved for that prefix in {@code employee_code_block}, so two employees
+ * never receive the same code and no insert has to fail to find out.
+ * <p>
+ * Reserved blocks and the worker id are dropped before a SnapStart/CRaC
+ * checkpoint and a worker id is leased again on first use after a restore,
+ * so instances restored from the same snapshot neither reuse numbers nor
+ * share a worker id.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+public class EmployeeIdAllocator implements Resource {
+
+    static final int MIN_CODE_DIGITS = 4;
+    static final String DEFAULT_PREFIX = "EMP";
+    // a concurrent first insert of a prefix makes the others retry
+    static final int MAX_RESERVE_ATTEMPTS = 5;
+
+    private static volatile EmployeeIdAllocator shared;
+
+    private final EmployeeCodeBlockRepository blockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    // configured worker id, used until the first checkpoint
+    private volatile long workerId;
+
+    private volatile SnowflakeIdGenerator idGenerator;
+
+    private final ConcurrentMap<String, CodeBlock> blocks = new ConcurrentHashMap<>();
+
+    public EmployeeIdAllocator(EmployeeCodeBlockRepository blockRepository, PlatformTransactionManager transactionManager,
+            @Value("${api.employee.ids.worker-id:-1}") long workerId,
+            @Value("${api.employee.ids.code-block-size:100}") int blockSize) {
+        this.blockRepository = blockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+        this.workerId = workerId;
+    }
+
+    @PostConstruct
+    void register() {
+        Core.getGlobalContext().register(this);
+        shared = this;
+    }
+
+    /**
+     *
+     * @return the allocator of the application, empty before it is created
+     */
+    static Optional<EmployeeIdAllocator> sharedInstance() {
+        return Optional.ofNullable(shared);
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        blocks.clear();
+        synchronized (this) {
+            idGenerator = null;
+            workerId = -1;
+        }
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        log.info("Employee id worker is leased again on first use after restore");
+    }
+
+    /**
+     *
+     * @return a new primary key
+     */
+    public EmployeeId nextId() {
+        return new EmployeeId(idGenerator().nextId());
+    }
+
+    private SnowflakeIdGenerator idGenerator() {
+        SnowflakeIdGenerator generator = idGenerator;
+        if (generator == null) {
+            synchronized (this) {
+                if (idGenerator == null) {
+                    idGenerator = new SnowflakeIdGenerator(workerId >= 0 ? workerId : leaseWorkerId());
+                    log.info("Employee id worker {}", idGenerator.getWorkerId());
+                }
+                generator = idGenerator;
+            }
+        }
+        return generator;
+    }
+
+    private long leaseWorkerId() {
+        return Math.floorMod(blockRepository.nextWorkerSequence(), SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+    }
+
+    /**
+     *
+     * @param employee
+     * @return a new employee code for the employee's name
+     */
+    public String nextEmployeeCode(Employee employee) {
+        String prefix = codePrefixOf(employee);
+
+        return prefix + StringUtils.leftPad(Long.toString(nextNumber(prefix)), MIN_CODE_DIGITS, '0');
+    }
+
+    /**
+     * Two letters of the first name, the middle initial and two letters of
+     * the last name, restricted to A-Z so that prefix and number can not run
+     * into each other.
+     */
+    static String codePrefixOf(Employee employee) {
+        String firstName = StringUtils.defaultString(employee.getFirstName());
+        String middleName = employee.getMiddleName();
+        String lastName = StringUtils.defaultString(employee.getLastName());
+
+        String prefix = (firstName.length() > 2 ? firstName.substring(0, 2) : "")
+                + (StringUtils.isBlank(middleName) ? "" : middleName.substring(0, 1))
+                + (lastName.length() > 2 ? lastName.substring(0, 2) : "");
+
+        prefix = prefix.toUpperCase(Locale.ROOT).replaceAll("[^A-Z]", "");
+        return prefix.isEmpty() ? DEFAULT_PREFIX : prefix;
+    }
+
+    private long nextNumber(String prefix) {
+        while (true) {
+            CodeBlock block = blocks.compute(prefix,
+                    (key, current) -> current != null && current.hasRemaining() ? current : reserve(key));
+
+            long number = block.next.getAndIncrement();
+            if (number < block.end) {
+                return number;
+            }
+        }
+    }
+
+    private CodeBlock reserve(String prefix) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> reserveBlock(prefix));
+            } catch (DataIntegrityViolationException ex) {
+                // another instance created the row for this prefix first
+                if (attempt == MAX_RESERVE_ATTEMPTS) {
+                    throw ex;
+                }
+                log.debug("Code block of {} reserved concurrently, attempt {}", prefix, attempt);
+            }
+        }
+    }
+
+    private CodeBlock reserveBlock(String prefix) {
+        EmployeeCodeBlock row = blockRepository.findByPrefix(prefix)
+                .orElseGet(() -> new EmployeeCodeBlock(prefix, 1));
+
+        long start = row.getNextValue();
+        row.setNextValue(start + blockSize);
+        blockRepository.saveAndFlush(row);
+
+        return new CodeBlock(start, start + blockSize);
+    }
+
+    private static final class CodeBlock {
+
+        private final AtomicLong next;
+        private final long end;
+
+        CodeBlock(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+
+        boolean hasRemaining() {
+            return next.get() < end;
+        }
+    }
+}
@@ -0,0 +1,508 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.validation.ConstraintViolation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.javamoney.moneta.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+/**
+ * Imports employees from CSV or newline delimited JSON in stages:
+ * <ol>
+ * <li>the calling thread reads and parses the input line by line,</li>
+ * <li>chunks of parsed rows are validated and mapped to entities by a
+ * bounded pool of workers,</li>
+ * <li>a single writer removes duplicate emails and inserts each chunk with
+ * JDBC batching in its own transaction.</li>
+ * </ol>
+ * The queues between the stages are bounded: a full worker queue makes the
+ * reader validate the chunk itself and a full write queue blocks the
+ * workers, so memory use depends on the chunk size and queue capacity, not
+ * on the size of the input.
+ * <p>
+ * A chunk rejected by the database, usually because of an email repeated
+ * further apart than one chunk, is retried row by row to tell the failing
+ * rows from the others.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+public class EmployeeImportPipeline {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder()
+            .setNameFormat("employee-import-%d")
+            .setDaemon(true)
+            .build();
+
+    // bind parameters per email lookup
+    private static final int EMAIL_LOOKUP_SIZE = 1000;
+    private static final String EMAIL_UNIQUE_INDEX = "UN_EMP_EMAIL_IDX";
+
+    // identity marker closing the write queue
+    private static final List<Pending> END = new ArrayList<>(0);
+
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeBuilder employeeBuilder;
+    private final LocalValidatorFactoryBean validator;
+    private final EmployeeBatchWriter batchWriter;
+    private final EmployeeEmailFilter emailFilter;
+    private final ObjectMapper objectMapper;
+
+    private final int workers;
+    private final int queueCapacity;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public EmployeeImportPipeline(EmployeeRepository employeeRepository, EmployeeBuilder employeeBuilder,
+            LocalValidatorFactoryBean validator, EmployeeBatchWriter batchWriter, EmployeeEmailFilter emailFilter,
+            ObjectMapper objectMapper,
+            @Value("${api.employee.import.workers:0}") int workers,
+            @Value("${api.employee.import.queue-capacity:4}") int queueCapacity,
+            @Value("${api.employee.batch.chunk-size:500}") int chunkSize,
+            @Value("${api.employee.import.max-errors:1000}") int maxErrors) {
+        this.employeeRepository = employeeRepository;
+        this.employeeBuilder = employeeBuilder;
+        this.validator = validator;
+        this.batchWriter = batchWriter;
+        this.emailFilter = emailFilter;
+        this.objectMapper = objectMapper;
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports a CSV file whose first line names the columns, in any order:
+     * {@code email, firstName, middleName, lastName, empType, salary,
+     * currency}.
+     *
+     * @param input
+     * @return
+     * @throws IOException
+     */
+    public EmployeeImportReport importCsv(InputStream input) throws IOException {
+        try (BufferedReader reader = newReader(input)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return new Tally(maxErrors).toReport(0);
+            }
+
+            return run(reader, new CsvRowParser(splitCsv(header)));
+        }
+    }
+
+    /**
+     * Imports one JSON employee per line, in the format of
+     * {@code POST /api/v1/employees}.
+     *
+     * @param input
+     * @return
+     * @throws IOException
+     */
+    public EmployeeImportReport importNdjson(InputStream input) throws IOException {
+        try (BufferedReader reader = newReader(input)) {
+            return run(reader, line -> objectMapper.readValue(line, CreateEmployeeRequest.class));
+        }
+    }
+
+    private EmployeeImportReport run(BufferedReader reader, RowParser parser) throws IOException {
+        long start = System.nanoTime();
+        Tally tally = new Tally(maxErrors);
+
+        BlockingQueue<List<Pending>> writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        ThreadPoolExecutor validators = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), THREAD_FACTORY, new ThreadPoolExecutor.CallerRunsPolicy());
+        ExecutorService writerExecutor = Executors.newSingleThreadExecutor(THREAD_FACTORY);
+
+        try {
+            Future<?> writer = writerExecutor.submit(() -> write(writeQueue, tally));
+
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            long number = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(parse(++number, line, parser));
+
+                if (chunk.size() == chunkSize) {
+                    submit(validators, chunk, writeQueue, tally);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(validators, chunk, writeQueue, tally);
+            }
+
+            validators.shutdown();
+            validators.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            writeQueue.put(END);
+            writer.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Employee import interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Employee import failed", ex.getCause());
+        } finally {
+            validators.shutdownNow();
+            writerExecutor.shutdownNow();
+        }
+
+        EmployeeImportReport report = tally.toReport((System.nanoTime() - start) / 1_000_000);
+        log.info("Imported {} of {} employees in {} ms", report.created(), report.rows(), report.elapsedMillis());
+
+        return report;
+    }
+
+    private Row parse(long number, String line, RowParser parser) {
+        try {
+            return new Row(number, parser.parse(line), null);
+        } catch (Exception ex) {
+            return new Row(number, null, StringUtils.defaultIfBlank(ex.getMessage(), "Row could not be read"));
+        }
+    }
+
+    private void submit(ThreadPoolExecutor validators, List<Row> chunk, BlockingQueue<List<Pending>> writeQueue,
+            Tally tally) {
+        validators.execute(() -> {
+            List<Pending> pending = validate(chunk, tally);
+
+            if (!pending.isEmpty()) {
+                try {
+                    writeQueue.put(pending);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    pending.forEach(p -> tally.reject(p.number(), EmployeeBatchResult.Status.FAILED,
+                            "Import interrupted"));
+                }
+            }
+        });
+    }
+
+    private List<Pending> validate(List<Row> chunk, Tally tally) {
+        List<Pending> pending = new ArrayList<>(chunk.size());
+
+        for (Row row : chunk) {
+            if (row.error() != null) {
+                tally.reject(row.number(), EmployeeBatchResult.Status.INVALID, row.error());
+                continue;
+            }
+
+            Set<ConstraintViolation<CreateEmployeeRequest>> violations = validator.validate(row.request());
+            if (!violations.isEmpty()) {
+                tally.reject(row.number(), EmployeeBatchResult.Status.INVALID,
+                        violations.stream().map(v -> v.getPropertyPath() + ": " + v.getMessage()).toList());
+                continue;
+            }
+
+            try {
+                pending.add(new Pending(row.number(), row.request(), employeeBuilder.toEmployeeEntity(row.request())));
+            } catch (RuntimeException ex) {
+                log.warn("Import row {} could not be mapped", row.number(), ex);
+                tally.reject(row.number(), EmployeeBatchResult.Status.FAILED, ex.getMessage());
+            }
+        }
+        return pending;
+    }
+
+    private void write(BlockingQueue<List<Pending>> writeQueue, Tally tally) throws InterruptedException {
+        List<Pending> chunk;
+
+        while ((chunk = writeQueue.take()) != END) {
+            // numbers of the rows of the chunk already counted
+            Set<Long> settled = new HashSet<>();
+
+            try {
+                insert(removeDuplicates(chunk, tally, settled), tally, settled);
+            } catch (RuntimeException ex) {
+                log.warn("Import chunk from row {} failed", chunk.get(0).number(), ex);
+                chunk.stream()
+                        .filter(p -> !settled.contains(p.number()))
+                        .forEach(p -> tally.reject(p.number(), EmployeeBatchResult.Status.FAILED, ex.getMessage()));
+            }
+        }
+    }
+
+    private List<Pending> removeDuplicates(List<Pending> chunk, Tally tally, Set<Long> settled) {
+        Map<String, Pending> byEmail = new LinkedHashMap<>();
+
+        for (Pending p : chunk) {
+            if (byEmail.putIfAbsent(p.request().getEmail(), p) != null) {
+                tally.reject(p.number(), EmployeeBatchResult.Status.DUPLICATE, "email: " + p.request().getEmail());
+                settled.add(p.number());
+            }
+        }
+
+        List<String> candidateEmails = byEmail.keySet().stream()
+                .filter(emailFilter::mightContain)
+                .toList();
+
+        Set<String> existingEmails = new HashSet<>();
+        for (List<String> emails : Lists.partition(candidateEmails, EMAIL_LOOKUP_SIZE)) {
+            Set<String> found = new HashSet<>(employeeRepository.findExistingEmails(emails));
+
+            existingEmails.addAll(found);
+            for (String email : emails) {
+                emailFilter.recordCheck(found.contains(email));
+            }
+        }
+
+        List<Pending> accepted = new ArrayList<>(byEmail.size());
+        byEmail.forEach((email, p) -> {
+            if (existingEmails.contains(email)) {
+                tally.reject(p.number(), EmployeeBatchResult.Status.DUPLICATE, "email: " + email);
+                settled.add(p.number());
+            } else {
+                accepted.add(p);
+            }
+        });
+        return accepted;
+    }
+
+    private void insert(List<Pending> chunk, Tally tally, Set<Long> settled) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            batchWriter.insert(chunk.stream().map(Pending::employee).toList());
+            tally.created(chunk.size());
+            chunk.forEach(p -> settled.add(p.number()));
+        } catch (DataIntegrityViolationException ex) {
+            log.info("Import chunk from row {} rejected, retrying row by row: {}", chunk.get(0).number(),
+                    ex.getMostSpecificCause().getMessage());
+            chunk.forEach(p -> insertOne(p, tally, settled));
+        }
+    }
+
+    private void insertOne(Pending p, Tally tally, Set<Long> settled) {
+        try {
+            // the entity of the failed chunk may carry state of the rolled back persist
+            batchWriter.insert(List.of(employeeBuilder.toEmployeeEntity(p.request())));
+            tally.created(1);
+            settled.add(p.number());
+        } catch (DataAccessException ex) {
+            String cause = ex.getMostSpecificCause().getMessage();
+
+            if (ex instanceof DataIntegrityViolationException
+                    && StringUtils.containsIgnoreCase(cause, EMAIL_UNIQUE_INDEX)) {
+                tally.reject(p.number(), EmployeeBatchResult.Status.DUPLICATE, "email: " + p.request().getEmail());
+            } else {
+                tally.reject(p.number(), EmployeeBatchResult.Status.FAILED, cause);
+            }
+            settled.add(p.number());
+        }
+    }
+
+    private static BufferedReader newReader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Splits one CSV line, fields may be quoted with {@code "} and a quote
+     * inside a quoted field is doubled. Fields spanning lines are not
+     * supported.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+
+        CreateEmployeeRequest parse(String line) throws Exception;
+    }
+
+    private static final class CsvRowParser implements RowParser {
+
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        private CsvRowParser(List<String> header) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        @Override
+        public CreateEmployeeRequest parse(String line) {
+            List<String> fields = splitCsv(line);
+
+            String amount = field(fields, Employee.SALARY);
+            String currency = field(fields, Employee.CURRENCY);
+            String employeeType = field(fields, Employee.EMPLOYEE_TYPE);
+
+            return CreateEmployeeRequest.builder()
+                    .email(field(fields, Employee.EMAIL))
+                    .firstName(field(fields, Employee.FIRST_NAME))
+                    .middleName(field(fields, Employee.MIDDLE_NAME))
+                    .lastName(field(fields, Employee.LAST_NAME))
+                    .employeeType(employeeType == null ? null : EmployeeType.fromString(employeeType))
+                    .salary(amount == null || currency == null ? null : Money.of(new BigDecimal(amount), currency))
+                    .build();
+        }
+
+        private String field(List<String> fields, String name) {
+            Integer column = columns.get(name.toLowerCase(Locale.ROOT));
+
+            return column == null || column >= fields.size() ? null : StringUtils.trimToNull(fields.get(column));
+        }
+    }
+
+    private record Row(long number, CreateEmployeeRequest request, String error) {
+
+    }
+
+    private record Pending(long number, CreateEmployeeRequest request, Employee employee) {
+
+    }
+
+    /**
+     * Counts shared by all stages.
+     */
+    private static final class Tally {
+
+        private final int maxErrors;
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder created = new LongAdder();
+        private final Map<EmployeeBatchResult.Status, LongAdder> rejected = new EnumMap<>(EmployeeBatchResult.Status.class);
+        private final List<EmployeeBatchResult> errors = new ArrayList<>();
+
+        private Tally(int maxErrors) {
+            this.maxErrors = maxErrors;
+            for (EmployeeBatchResult.Status status : EmployeeBatchResult.Status.values()) {
+                rejected.put(status, new LongAdder());
+            }
+        }
+
+        void created(int count) {
+            rows.add(count);
+            created.add(count);
+        }
+
+        void reject(long number, EmployeeBatchResult.Status status, String error) {
+            reject(number, status, List.of(StringUtils.defaultString(error)));
+        }
+
+        void reject(long number, EmployeeBatchResult.Status status, List<String> reasons) {
+            rows.increment();
+            rejected.get(status).increment();
+
+            synchronized (errors) {
+                if (errors.size() <= maxErrors) {
+                    errors.add(EmployeeBatchResult.rejected(number, status, reasons));
+                }
+            }
+        }
+
+        EmployeeImportReport toReport(long elapsedMillis) {
+            Map<EmployeeBatchResult.Status, Long> counts = new EnumMap<>(EmployeeBatchResult.Status.class);
+            rejected.forEach((status, count) -> {
+                if (count.sum() > 0) {
+                    counts.put(status, count.sum());
+                }
+            });
+
+            synchronized (errors) {
+                List<EmployeeBatchResult> listed = errors.stream()
+                        .sorted(Comparator.comparingLong(EmployeeBatchResult::index))
+                        .limit(maxErrors)
+                        .toList();
+
+                return new EmployeeImportReport(rows.sum(), created.sum(), counts, listed,
+                        errors.size() > maxErrors, elapsedMillis);
+            }
+        }
+    }
+}
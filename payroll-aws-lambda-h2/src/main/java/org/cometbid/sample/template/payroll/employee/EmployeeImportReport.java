@@ -0,0 +1,45 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of an import. Only a bounded number of rejected rows are listed,
+ * the counts always cover the whole input; {@code index} of an error is the
+ * 1-based number of the data row.
+ *
+ * @author samueladebowale
+ * @param rows data rows read
+ * @param created employees created
+ * @param rejected rows not imported, by reason
+ * @param errors rejected rows, in row order
+ * @param errorsTruncated whether more rows were rejected than listed
+ * @param elapsedMillis
+ */
+public record EmployeeImportReport(long rows, long created, Map<EmployeeBatchResult.Status, Long> rejected,
+        List<EmployeeBatchResult> errors, boolean errorsTruncated, long elapsedMillis) {
+
+}
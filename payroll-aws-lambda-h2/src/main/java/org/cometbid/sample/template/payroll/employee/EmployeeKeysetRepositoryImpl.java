@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+class EmployeeKeysetRepositoryImpl implements EmployeeKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Builds {@code (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ...}, the expanded
+     * form of the row value comparison, which every dialect understands and
+     * which lets the database seek on an index leading with the sort columns.
+     *
+     * @param cursor
+     * @param limit
+     * @return
+     */
+    @Override
+    public List<Employee> findNextByCursor(EmployeeCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+        Root<Employee> root = query.from(Employee.class);
+
+        List<EmployeeCursor.Key> keys = cursor.getKeys();
+        List<Order> orders = new ArrayList<>(keys.size());
+
+        for (EmployeeCursor.Key key : keys) {
+            Path<?> path = root.get(key.property());
+            orders.add(key.direction().isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+
+        if (!cursor.isFirst()) {
+            List<Predicate> disjuncts = new ArrayList<>(keys.size());
+
+            for (int i = 0; i < keys.size(); i++) {
+                List<Predicate> conjuncts = new ArrayList<>(i + 1);
+
+                for (int j = 0; j < i; j++) {
+                    EmployeeCursor.Key key = keys.get(j);
+                    conjuncts.add(cb.equal(root.get(key.property()), EmployeeCursor.typedValue(key)));
+                }
+                conjuncts.add(seek(cb, root, keys.get(i)));
+
+                disjuncts.add(cb.and(conjuncts.toArray(Predicate[]::new)));
+            }
+            query.where(cb.or(disjuncts.toArray(Predicate[]::new)));
+        }
+
+        query.select(root).orderBy(orders);
+
+        log.debug("Keyset page of {} after {}", limit, cursor);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate seek(CriteriaBuilder cb, Root<Employee> root, EmployeeCursor.Key key) {
+        Path path = root.get(key.property());
+        Comparable value = EmployeeCursor.typedValue(key);
+
+        return key.direction().isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+}
@@ -0,0 +1,572 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import jakarta.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import lombok.extern.log4j.Log4j2;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-process type-ahead index over employee names.
+ * <p>
+ * Every name token (first, middle and last name, lower cased and stripped of
+ * accents) is indexed under its leading prefixes and its trigrams. Postings
+ * are int ordinals appended in insertion order, so a lookup is a hash probe
+ * followed by a scan of the shortest posting list among the query terms.
+ * Prefix hits rank before infix (trigram) hits; within each, names with
+ * more terms matching a whole token rank first, then by name and id. At most
+ * {@link #MAX_SCAN} postings are ranked per lookup, a query so short that
+ * its shortest list is longer ranks the employees indexed first.
+ * <p>
+ * The index is built from the employee table when the application is ready,
+ * follows {@link EmployeeChangedEvent}s afterwards and, optionally, is
+ * rebuilt after a SnapStart/CRaC restore. Removed employees are dropped by a
+ * scheduled compaction, off the thread that published the change. When it is disabled, still
+ * building or over its memory budget {@link #search(String, int)} returns
+ * empty and callers fall back to the database.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+public class EmployeeNameIndex implements Resource {
+
+    static final int MAX_PREFIX = 8;
+    static final int GRAM = 3;
+    static final int MAX_SCAN = 10_000;
+
+    private final EmployeeRepository employeeRepository;
+    private final TransactionTemplate readOnlyTx;
+
+    @Value("${api.employee.name-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${api.employee.name-index.max-memory-mb:64}")
+    private long maxMemoryMb;
+
+    @Value("${api.employee.name-index.rebuild-on-restore:true}")
+    private boolean rebuildOnRestore;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // one rebuild or compaction at a time, both replace the segment
+    private final ReentrantLock maintenance = new ReentrantLock();
+
+    // guarded by lock
+    private Segment segment = new Segment(0);
+    // guarded by lock, collects the changes that happen while a rebuild runs
+    private List<EmployeeChangedEvent> pending;
+
+    private volatile boolean ready;
+
+    public EmployeeNameIndex(EmployeeRepository employeeRepository, PlatformTransactionManager transactionManager) {
+        this.employeeRepository = employeeRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void registerCheckpointHook() {
+        Core.getGlobalContext().register(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        // the index is part of the heap snapshot, nothing to release
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        if (rebuildOnRestore) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the index from a single streaming read of the name columns.
+     * Lookups keep using the previous index until the new one is swapped in,
+     * changes published in between are replayed on the new one.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        maintenance.lock();
+        try {
+            load();
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    private void load() {
+        withWriteLock(() -> pending = new ArrayList<>());
+        Segment fresh = new Segment(maxMemoryMb * 1024 * 1024);
+        long start = System.nanoTime();
+
+        try {
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<EmployeeNameView> rows = employeeRepository.streamAllBy(EmployeeNameView.class)) {
+                    Iterator<EmployeeNameView> it = rows.iterator();
+
+                    while (it.hasNext() && !fresh.overBudget) {
+                        EmployeeNameView row = it.next();
+                        fresh.add(row.getEmployeeId(),
+                                fullName(row.getFirstName(), row.getMiddleName(), row.getLastName()));
+                    }
+                }
+            });
+
+            withWriteLock(() -> {
+                pending.forEach(event -> apply(fresh, event));
+                segment = fresh;
+                ready = !fresh.overBudget;
+            });
+        } finally {
+            withWriteLock(() -> pending = null);
+        }
+
+        log.info("Employee name index built in {} ms: {} employees, {} postings, ~{} KB, ready: {}",
+                (System.nanoTime() - start) / 1_000_000, fresh.live(), fresh.postings,
+                fresh.estimatedBytes() / 1024, ready);
+    }
+
+    /**
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        withWriteLock(() -> {
+            apply(segment, event);
+            if (pending != null) {
+                pending.add(event);
+            }
+            ready = ready && !segment.overBudget;
+        });
+    }
+
+    @Scheduled(initialDelayString = "${api.employee.name-index.compaction-interval:PT1M}",
+            fixedDelayString = "${api.employee.name-index.compaction-interval:PT1M}")
+    public void scheduledCompaction() {
+        if (enabled && needsCompaction()) {
+            compact();
+        }
+    }
+
+    private boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            return segment.removed > segment.live();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the live employees into a new segment under the read lock, so
+     * lookups go on while it runs, and swaps it in. Skipped while a rebuild
+     * or another compaction is running, they replace the segment anyway.
+     */
+    private void compact() {
+        if (!maintenance.tryLock()) {
+            return;
+        }
+
+        try {
+            withWriteLock(() -> pending = new ArrayList<>());
+            try {
+                Segment compacted;
+                lock.readLock().lock();
+                try {
+                    compacted = segment.compact();
+                } finally {
+                    lock.readLock().unlock();
+                }
+
+                withWriteLock(() -> {
+                    pending.forEach(event -> apply(compacted, event));
+                    segment = compacted;
+                    ready = ready && !compacted.overBudget;
+                });
+            } finally {
+                withWriteLock(() -> pending = null);
+            }
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    private static void apply(Segment target, EmployeeChangedEvent event) {
+        EmployeeState before = event.before();
+        EmployeeState after = event.after();
+
+        // states returned by single statements carry no names
+        if (before != null && before.lastName() != null) {
+            target.remove(before.employeeId());
+        }
+        if (event.changeType() == EmployeeChangedEvent.ChangeType.DELETED) {
+            target.remove(event.employeeId());
+        }
+        if (after != null && after.lastName() != null) {
+            target.remove(after.employeeId());
+            target.add(after.employeeId(), fullName(after.firstName(), after.middleName(), after.lastName()));
+        }
+    }
+
+    /**
+     * Returns the {@code limit} best ranked employee ids whose name tokens
+     * start with every term of the query, followed by ids whose names merely
+     * contain them.
+     *
+     * @param query
+     * @param limit
+     * @return empty when the index cannot answer and the caller must fall
+     * back to the database
+     */
+    public Optional<List<String>> search(String query, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+
+        String[] terms = Arrays.stream(normalize(query).split(" "))
+                .filter(t -> !t.isEmpty())
+                .toArray(String[]::new);
+        if (terms.length == 0) {
+            return Optional.of(List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            List<String> hits = new ArrayList<>(segment.top(
+                    segment.smallest(segment.prefixes, terms, MAX_PREFIX), terms, true, Set.of(), limit));
+            if (hits.size() < limit) {
+                hits.addAll(segment.top(segment.smallest(segment.trigrams, terms, GRAM), terms, false,
+                        new HashSet<>(hits), limit - hits.size()));
+            }
+            return Optional.of(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     *
+     * @return size and memory figures of the index
+     */
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            return Map.of("ready", ready,
+                    "employees", segment.live(),
+                    "postings", segment.postings,
+                    "estimatedBytes", segment.estimatedBytes(),
+                    "budgetBytes", maxMemoryMb * 1024 * 1024);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String fullName(String... parts) {
+        return normalize(String.join(" ", Arrays.stream(parts).filter(Objects::nonNull).toList()));
+    }
+
+    /**
+     * Lower cases, strips accents and collapses every run of non
+     * alphanumeric characters into a single space.
+     *
+     * @param value
+     * @return
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean separator = true;
+
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                separator = false;
+            } else if (!separator && Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(' ');
+                separator = true;
+            }
+        }
+
+        int end = sb.length();
+        return separator && end > 0 ? sb.substring(0, end - 1) : sb.toString();
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Growable, insertion ordered list of ordinals.
+     */
+    private static final class Postings {
+
+        private int[] ordinals = new int[4];
+        private int size;
+
+        boolean add(int ordinal) {
+            // all keys of one employee are added in a row, this dedupes tokens sharing a key
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return false;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+            return true;
+        }
+    }
+
+    /**
+     * One generation of the index. Removed employees leave a hole that is
+     * skipped on lookup and dropped on compaction.
+     */
+    private static final class Segment {
+
+        private final long budgetBytes;
+
+        private final Map<String, Postings> prefixes = new HashMap<>();
+        private final Map<String, Postings> trigrams = new HashMap<>();
+        private final List<String> ids = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ordinals = new HashMap<>();
+
+        private long postings;
+        private long nameChars;
+        private int removed;
+        private boolean overBudget;
+
+        Segment(long budgetBytes) {
+            this.budgetBytes = budgetBytes;
+        }
+
+        int live() {
+            return ordinals.size();
+        }
+
+        long estimatedBytes() {
+            return postings * Integer.BYTES
+                    + (prefixes.size() + trigrams.size()) * 64L
+                    + ids.size() * 48L
+                    + nameChars * 2;
+        }
+
+        void add(String employeeId, String name) {
+            if (employeeId == null || overBudget) {
+                return;
+            }
+
+            int ordinal = ids.size();
+            ids.add(employeeId);
+            names.add(name);
+            ordinals.put(employeeId, ordinal);
+            nameChars += name.length() + employeeId.length();
+
+            for (String token : name.split(" ")) {
+                for (int len = 1; len <= Math.min(MAX_PREFIX, token.length()); len++) {
+                    post(prefixes, token.substring(0, len), ordinal);
+                }
+                for (int i = 0; i + GRAM <= token.length(); i++) {
+                    post(trigrams, token.substring(i, i + GRAM), ordinal);
+                }
+            }
+
+            if (budgetBytes > 0 && estimatedBytes() > budgetBytes) {
+                log.warn("Employee name index exceeds its budget of {} bytes, disabling it", budgetBytes);
+                overBudget = true;
+            }
+        }
+
+        private void post(Map<String, Postings> keys, String key, int ordinal) {
+            if (keys.computeIfAbsent(key, k -> new Postings()).add(ordinal)) {
+                postings++;
+            }
+        }
+
+        void remove(String employeeId) {
+            Integer ordinal = employeeId == null ? null : ordinals.remove(employeeId);
+
+            if (ordinal != null) {
+                ids.set(ordinal, null);
+                names.set(ordinal, null);
+                removed++;
+            }
+        }
+
+        Segment compact() {
+            Segment compacted = new Segment(budgetBytes);
+
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) != null) {
+                    compacted.add(ids.get(i), names.get(i));
+                }
+            }
+            return compacted;
+        }
+
+        /**
+         * Picks the shortest posting list among the terms, keys longer than
+         * the indexed length are truncated and verified afterwards. For
+         * trigrams every term contributes its first trigram only.
+         */
+        Postings smallest(Map<String, Postings> keys, String[] terms, int keyLength) {
+            Postings best = null;
+
+            for (String term : terms) {
+                if (keys == trigrams && term.length() < GRAM) {
+                    continue;
+                }
+
+                Postings candidate = keys.get(term.substring(0, Math.min(term.length(), keyLength)));
+                if (candidate == null) {
+                    return null;
+                }
+                if (best == null || candidate.size < best.size) {
+                    best = candidate;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Ranks the matches among the first {@link #MAX_SCAN} entries of one
+         * posting list, keeping the best {@code limit} in a bounded heap
+         * whose head is the worst kept hit.
+         */
+        List<String> top(Postings source, String[] terms, boolean prefixOnly, Set<String> exclude, int limit) {
+            if (source == null || limit <= 0) {
+                return List.of();
+            }
+
+            PriorityQueue<Hit> best = new PriorityQueue<>(Hit.RANKING.reversed());
+            int end = Math.min(source.size, MAX_SCAN);
+            for (int i = 0; i < end; i++) {
+                int ordinal = source.ordinals[i];
+                String name = names.get(ordinal);
+
+                if (name != null && !exclude.contains(ids.get(ordinal)) && matches(name, terms, prefixOnly)) {
+                    best.add(new Hit(ids.get(ordinal), name, wholeTokens(name, terms)));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(best);
+            ranked.sort(Hit.RANKING);
+            return ranked.stream().map(Hit::employeeId).toList();
+        }
+
+        private static int wholeTokens(String name, String[] terms) {
+            List<String> tokens = Arrays.asList(name.split(" "));
+            int whole = 0;
+
+            for (String term : terms) {
+                if (tokens.contains(term)) {
+                    whole++;
+                }
+            }
+            return whole;
+        }
+
+        private static boolean matches(String name, String[] terms, boolean prefixOnly) {
+            for (String term : terms) {
+                if (prefixOnly ? !startsAnyToken(name, term) : !name.contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean startsAnyToken(String name, String term) {
+            int from = name.indexOf(term);
+
+            while (from >= 0) {
+                if (from == 0 || name.charAt(from - 1) == ' ') {
+                    return true;
+                }
+                from = name.indexOf(term, from + 1);
+            }
+            return false;
+        }
+    }
+
+    private record Hit(String employeeId, String name, int wholeTokens) {
+
+        static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::wholeTokens).reversed()
+                .thenComparing(Hit::name)
+                .thenComparing(Hit::employeeId);
+    }
+}
@@ -45,7 +45,10 @@ import org.springframework.data.domain.Sort;
  */
 @Log4j2
 public final class EmployeePagingUtil {
-    
+
+    public static final String CURSOR_PARAM = "cursor";
+    public static final String COUNT_PARAM = "count";
+
     public static Pageable CURRENT_PAGEABLE = PageRequest.of(PagingModel.DEFAULT.getPage(),
             PagingModel.DEFAULT.getSize(),
             Sort.by(Employee.DEFAULT_SORTFIELD));
@@ -88,6 +91,46 @@ public final class EmployeePagingUtil {
 
     }
     
+    /**
+     * Resolves the keyset cursor of a request. A blank cursor starts from the
+     * first page using the requested sort, a non blank one resumes where the
+     * previous page ended and keeps the sort it was created with.
+     *
+     * @param queryParams
+     * @return
+     */
+    public static EmployeeCursor prepareCursor(Map<String, String> queryParams) {
+        String token = queryParams.get(CURSOR_PARAM);
+
+        if (StringUtils.isNotBlank(token)) {
+            return EmployeeCursor.decode(token);
+        }
+
+        Map<String, Sort.Direction> map = PagingFactory.convertTo(extractSortParams(queryParams));
+        log.info("Cursor sort params: {}", map);
+        List<Sort.Order> list = PagingFactory.createSortOrder(map);
+
+        return EmployeeCursor.first(list.isEmpty() ? Sort.by(Employee.DEFAULT_SORTFIELD) : Sort.by(list));
+    }
+
+    /**
+     *
+     * @param queryParams
+     * @return requested page size, or the default one
+     */
+    public static int preparePageSize(Map<String, String> queryParams) {
+        return PagingFactory.createPagingModel(queryParams).getSize();
+    }
+
+    /**
+     *
+     * @param queryParams
+     * @return true when the caller asked for the total element count
+     */
+    public static boolean isCountRequested(Map<String, String> queryParams) {
+        return Boolean.parseBoolean(queryParams.get(COUNT_PARAM));
+    }
+
     private static Map<String, String> extractSortParams(final Map<String, String> queryParams) {
         String sortParams = "";
 
@@ -23,18 +23,197 @@
  */
 package org.cometbid.sample.template.payroll.employee;
 
+import jakarta.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  *
  * @author samueladebowale
  */
-public interface EmployeeRepository extends JpaRepository<Employee, EmployeeId> {
+public interface EmployeeRepository extends JpaRepository<Employee, EmployeeId>,
+        JpaSpecificationExecutor<Employee>, EmployeeKeysetRepository {
 
-    Optional<Employee> findByEmployeeIdIgnoreCase(String employeeId);
+    /**
+     * JDBC fetch size used by paged reads, large enough to read a full page
+     * in a single round trip and small enough to keep the driver buffers
+     * bounded.
+     */
+    String FETCH_SIZE = "100";
+
+    /**
+     * JDBC fetch size used by full table streams.
+     */
+    String STREAM_FETCH_SIZE = "1000";
+
+    /**
+     * Exact match on the unique employee id index, pass the id through
+     * {@link Employee#normalizeEmployeeId(String)} first.
+     *
+     * @param employeeId
+     * @return
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Employee> findByEmployeeId(String employeeId);
     
-    Optional<Employee> deleteByEmployeeIdIgnoreCase(String employeeId);
+    /**
+     * Deletes in one statement. As a JPQL bulk statement it invalidates the
+     * cached employees and the cached queries over the employee table.
+     *
+     * @param employeeIds
+     * @return number of deleted rows
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Employee e where e.employeeId in :employeeIds")
+    int deleteAllByEmployeeIdIn(@Param("employeeIds") Collection<String> employeeIds);
 
     boolean existsByEmail(String email);
+
+    boolean existsByEmployeeId(String employeeId);
+
+    /**
+     * Version of one employee, answers conditional requests with a single
+     * index lookup.
+     *
+     * @param employeeId
+     * @return
+     */
+    @Query("select e.version from Employee e where e.employeeId = :employeeId")
+    Optional<Long> findVersionByEmployeeId(@Param("employeeId") String employeeId);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e.email from Employee e")
+    Stream<String> streamAllEmails();
+
+    /**
+     * Streams every employee, bypassing the second-level cache. Must be
+     * consumed inside a transaction and closed by the caller.
+     *
+     * @return
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select e from Employee e")
+    Stream<Employee> streamAll();
+
+    /**
+     * Sets the names and bumps the version in one statement, without loading
+     * the employee.
+     *
+     * @param employeeId
+     * @param firstName
+     * @param middleName
+     * @param lastName
+     * @param version expected current version, negative to skip the check
+     * @return number of updated rows
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Employee e set e.firstName = :firstName, e.middleName = :middleName, e.lastName = :lastName, "
+            + "e.version = e.version + 1 "
+            + "where e.employeeId = :employeeId and (:version < 0 or e.version = :version)")
+    int updateNameByEmployeeId(@Param("employeeId") String employeeId, @Param("firstName") String firstName,
+            @Param("middleName") String middleName, @Param("lastName") String lastName,
+            @Param("version") long version);
+
+    /**
+     * Sets the employee type and salary and bumps the version in one
+     * statement, without loading the employee, null values leave the column
+     * unchanged. As a JPQL bulk statement it invalidates the cached employees
+     * and the cached queries over the employee table.
+     *
+     * @param employeeId
+     * @param empType
+     * @param amount
+     * @param currency
+     * @param version expected current version, negative to skip the check
+     * @return number of updated rows
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Employee e set e.empType = coalesce(:empType, e.empType), "
+            + "e.salary.amount = coalesce(:amount, e.salary.amount), "
+            + "e.salary.currency = coalesce(:currency, e.salary.currency), "
+            + "e.version = e.version + 1 "
+            + "where e.employeeId = :employeeId and (:version < 0 or e.version = :version)")
+    int updateTypeByEmployeeId(@Param("employeeId") String employeeId, @Param("empType") EmployeeType empType,
+            @Param("amount") BigDecimal amount, @Param("currency") String currency,
+            @Param("version") long version);
+
+    @Query("select e.email from Employee e where e.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Reads one page without a count query, the slice only knows whether a
+     * next page exists.
+     *
+     * @param pageable
+     * @return
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true")
+    })
+    Slice<Employee> findAllBy(Pageable pageable);
+
+    /**
+     * Ids and versions of the same slice as {@link #findAllBy(Pageable)}.
+     *
+     * @param pageable
+     * @return
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Slice<EmployeeVersionView> findVersionsBy(Pageable pageable);
+
+    /**
+     * Streams every row as the given projection. Must be consumed inside a
+     * transaction and closed by the caller.
+     *
+     * @param <T>
+     * @param type
+     * @return
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    <T> Stream<T> streamAllBy(Class<T> type);
+
+    /**
+     * Streams the id, type, salary and creation date columns of every row,
+     * without entities. Must be consumed inside a transaction and closed by
+     * the caller.
+     *
+     * @return rows of employee_id, employee_type, sal_amount, sal_currency,
+     * creation_date
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT employee_id, employee_type, sal_amount, sal_currency, creation_date FROM employee",
+            nativeQuery = true)
+    Stream<Object[]> streamSalaryColumns();
+
+    List<EmployeeNameView> findByLastNameStartingWith(String prefix, Pageable pageable);
 }
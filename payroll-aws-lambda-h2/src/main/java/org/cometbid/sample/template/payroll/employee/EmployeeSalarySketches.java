@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.cometbid.component.api.generic.exceptions.BadRequestException;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.money.MinorUnitMoney;
+import org.springframework.stereotype.Component;
+
+/**
+ * Salary percentiles per employee type and currency from the
+ * {@link SalarySketch} each bucket of the {@link EmployeeSalarySnapshot}
+ * keeps.
+ * <p>
+ * The sketches are exported in their binary form so that the sketches of
+ * several instances, or of earlier exports, can be merged into percentiles
+ * over all of them.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class EmployeeSalarySketches {
+
+    private static final String KEY_SEPARATOR = "/";
+
+    private final EmployeeSalarySnapshot salarySnapshot;
+
+    /**
+     *
+     * @return p50, p90 and p99 per employee type and currency with employees
+     */
+    public Map<String, Object> getPercentiles() {
+        return percentiles(salarySnapshot.copySalarySketches());
+    }
+
+    /**
+     *
+     * @return the Base64 encoded sketches keyed by employee type and
+     * currency, e.g. {@code FULL-TIME/USD}
+     */
+    public Map<String, String> exportSketches() {
+        Map<String, String> exported = new LinkedHashMap<>();
+
+        salarySnapshot.copySalarySketches().ifPresent(current -> {
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].getCount() > 0) {
+                    exported.put(key(i), Base64.getEncoder().encodeToString(current[i].serialize()));
+                }
+            }
+        });
+        return exported;
+    }
+
+    /**
+     * Percentiles over the local sketches merged with exported ones.
+     *
+     * @param exports sketches as returned by {@link #exportSketches()}
+     * @return
+     */
+    public Map<String, Object> mergePercentiles(Collection<Map<String, String>> exports) {
+        SalarySketch[] merged = salarySnapshot.copySalarySketches().orElseGet(this::newSketches);
+
+        for (Map<String, String> export : exports) {
+            export.forEach((key, encoded) -> merge(merged[index(key)], key, encoded));
+        }
+        return percentiles(Optional.of(merged));
+    }
+
+    private Map<String, Object> percentiles(Optional<SalarySketch[]> source) {
+        List<Map<String, Object>> percentiles = new ArrayList<>();
+        long memoryBytes = 0;
+
+        if (source.isPresent()) {
+            SalarySketch[] sketches = source.get();
+            for (int i = 0; i < sketches.length; i++) {
+                SalarySketch sketch = sketches[i];
+                memoryBytes += sketch.memoryBytes();
+
+                long count = sketch.getCount();
+                if (count <= 0) {
+                    continue;
+                }
+
+                CurrencyFactory.Currency currency = EmployeeSalarySnapshot.bucketCurrency(i);
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("employeeType", EmployeeSalarySnapshot.bucketType(i).getValue());
+                entry.put("currency", currency.toString());
+                entry.put("count", count);
+                entry.put("p50", MinorUnitMoney.of(sketch.quantile(0.50), currency));
+                entry.put("p90", MinorUnitMoney.of(sketch.quantile(0.90), currency));
+                entry.put("p99", MinorUnitMoney.of(sketch.quantile(0.99), currency));
+                percentiles.add(entry);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("percentiles", percentiles);
+        result.put("relativeAccuracy", salarySnapshot.getRelativeAccuracy());
+        result.put("memoryKb", BigDecimal.valueOf(memoryBytes).divide(BigDecimal.valueOf(1024), 1,
+                RoundingMode.HALF_UP));
+        result.put("stale", source.isEmpty());
+        result.put("lastRebuilt", salarySnapshot.getLastRebuilt());
+        return result;
+    }
+
+    /**
+     * Decodes and merges a sketch sent by a client, any invalid input is a
+     * bad request.
+     */
+    private void merge(SalarySketch target, String key, String encoded) {
+        try {
+            if (encoded == null) {
+                throw new IllegalArgumentException("Missing sketch");
+            }
+            SalarySketch sketch = SalarySketch.deserialize(Base64.getDecoder().decode(encoded));
+            if (sketch.getRelativeAccuracy() != salarySnapshot.getRelativeAccuracy()) {
+                throw new IllegalArgumentException("Relative accuracy " + sketch.getRelativeAccuracy());
+            }
+            target.merge(sketch);
+        } catch (IllegalArgumentException ex) {
+            log.debug("Salary sketch {} rejected", key, ex);
+            throw new BadRequestException("salary.sketch.invalid", new Object[]{key});
+        }
+    }
+
+    private static int index(String key) {
+        int separator = key.indexOf(KEY_SEPARATOR);
+        EmployeeType type = separator < 0 ? null : EmployeeType.fromString(key.substring(0, separator));
+        CurrencyFactory.Currency currency = separator < 0 ? null
+                : CurrencyFactory.Currency.fromString(key.substring(separator + 1));
+        if (type == null || currency == null) {
+            throw new BadRequestException("salary.sketch.invalid", new Object[]{key});
+        }
+        return EmployeeSalarySnapshot.bucket(type, currency);
+    }
+
+    private static String key(int bucket) {
+        return EmployeeSalarySnapshot.bucketType(bucket).getValue() + KEY_SEPARATOR
+                + EmployeeSalarySnapshot.bucketCurrency(bucket);
+    }
+
+    private SalarySketch[] newSketches() {
+        SalarySketch[] fresh = new SalarySketch[EmployeeSalarySnapshot.BUCKETS];
+        for (int i = 0; i < fresh.length; i++) {
+            fresh[i] = new SalarySketch(salarySnapshot.getRelativeAccuracy());
+        }
+        return fresh;
+    }
+}
@@ -0,0 +1,847 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.money.MonetaryAmount;
+import lombok.extern.log4j.Log4j2;
+import org.cometbid.component.api.util.TimeZoneUtils;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.fx.FxRateTable;
+import org.cometbid.sample.template.payroll.money.MinorUnitMoney;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Column store of the salary attributes of all employees for analytics:
+ * salary in minor units, currency ordinal, type ordinal and day of hire as
+ * parallel primitive arrays, one row per employee. Aggregations are plain
+ * loops over the arrays, no entity is loaded. Count, salary sum, minimum,
+ * maximum and a {@link SalarySketch} per employee type and currency bucket
+ * are kept up to date with the rows.
+ * <p>
+ * This is the one in-memory aggregate of the employee table that follows
+ * {@link EmployeeChangedEvent}s: {@link EmployeeCounters},
+ * {@link EmployeeSalaryStats} and {@link EmployeeSalarySketches} read from
+ * it. The rows are split into stripes by employee id, each with its own lock
+ * and bucket aggregates, so that changes of different employees rarely
+ * contend and a bucket query only adds up the aggregates of the stripes. The
+ * snapshot is built from a single streaming read when the application is
+ * ready and periodically. Changes published while a rebuild runs are
+ * replayed on the new stripes; every change sets the state of one employee
+ * row, so replaying a change the read already saw is harmless. Rows of
+ * deleted employees are marked and reused.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+public class EmployeeSalarySnapshot {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // a power of two, see stripeIndex
+    private static final int STRIPES = 16;
+    private static final byte DELETED = -1;
+    // day of an employee without a creation date, left out of the hires
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final EmployeeType[] TYPES = EmployeeType.values();
+    private static final CurrencyFactory.Currency[] CURRENCIES = CurrencyFactory.Currency.values();
+
+    /**
+     * Number of employee type and currency buckets, see
+     * {@link #bucket(EmployeeType, CurrencyFactory.Currency)}.
+     */
+    static final int BUCKETS = TYPES.length * CURRENCIES.length;
+
+    private final EmployeeRepository employeeRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final FxRateTable fxRateTable;
+    private final double relativeAccuracy;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private volatile boolean ready;
+    private volatile OffsetDateTime lastRebuilt;
+
+    public EmployeeSalarySnapshot(EmployeeRepository employeeRepository,
+            PlatformTransactionManager transactionManager, FxRateTable fxRateTable,
+            @Value("${api.employee.salary-sketches.relative-accuracy:0.01}") double relativeAccuracy) {
+        this.employeeRepository = employeeRepository;
+        this.fxRateTable = fxRateTable;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.relativeAccuracy = relativeAccuracy;
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(new Columns(INITIAL_CAPACITY / STRIPES, relativeAccuracy));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${api.employee.salary-snapshot.rebuild-interval:PT30M}",
+            fixedDelayString = "${api.employee.salary-snapshot.rebuild-interval:PT30M}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the snapshot from a single streaming read, queries keep using
+     * the previous stripes until the new ones are swapped in. One rebuild
+     * runs at a time.
+     */
+    public synchronized void rebuild() {
+        for (Stripe stripe : stripes) {
+            stripe.write(() -> stripe.pending = new ArrayList<>());
+        }
+
+        int capacity = Math.max(INITIAL_CAPACITY, Math.toIntExact(employeeRepository.count())) / STRIPES;
+        Columns[] fresh = new Columns[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            fresh[i] = new Columns(capacity, relativeAccuracy);
+        }
+        long start = System.nanoTime();
+
+        try {
+            readOnlyTx.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = employeeRepository.streamSalaryColumns()) {
+                    Iterator<Object[]> it = rows.iterator();
+
+                    while (it.hasNext()) {
+                        Object[] row = it.next();
+                        String employeeId = (String) row[0];
+                        Columns target = fresh[stripeIndex(employeeId)];
+                        CurrencyFactory.Currency currency = CurrencyFactory.Currency.fromString((String) row[3]);
+
+                        try {
+                            long salary = currency == null ? 0
+                                    : MinorUnitMoney.toMinorUnits((BigDecimal) row[2], currency);
+                            target.upsert(employeeId, EmployeeType.fromString((String) row[1]), currency, salary,
+                                    epochDay(row[4]));
+                        } catch (ArithmeticException ex) {
+                            log.warn("Salary of employee {} does not fit in minor units", employeeId);
+                            target.markUnmapped(employeeId);
+                        }
+                    }
+                }
+            });
+
+            for (int i = 0; i < STRIPES; i++) {
+                Stripe stripe = stripes[i];
+                Columns columns = fresh[i];
+                stripe.write(() -> {
+                    stripe.pending.forEach(event -> apply(columns, event));
+                    stripe.columns = columns;
+                });
+            }
+            ready = true;
+            lastRebuilt = TimeZoneUtils.getOffsetDateTimeInUTC();
+        } finally {
+            for (Stripe stripe : stripes) {
+                stripe.write(() -> stripe.pending = null);
+            }
+        }
+
+        long live = 0;
+        long bytes = 0;
+        for (Columns columns : fresh) {
+            live += columns.live;
+            bytes += columns.estimatedBytes();
+        }
+        log.info("Employee salary snapshot built in {} ms: {} employees, ~{} KB",
+                (System.nanoTime() - start) / 1_000_000, live, bytes / 1024);
+    }
+
+    /**
+     *
+     * @param event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        Stripe stripe = stripes[stripeIndex(event.employeeId())];
+
+        stripe.write(() -> {
+            apply(stripe.columns, event);
+            if (stripe.pending != null) {
+                stripe.pending.add(event);
+            }
+        });
+    }
+
+    private static void apply(Columns target, EmployeeChangedEvent event) {
+        EmployeeState after = event.after();
+
+        try {
+            switch (event.changeType()) {
+                case DELETED ->
+                    target.remove(event.employeeId());
+                case CREATED -> {
+                    CurrencyFactory.Currency currency = currencyOf(after.salary());
+                    target.upsert(after.employeeId(), after.empType(), currency,
+                            currency == null ? 0 : MinorUnitMoney.of(after.salary()).minorUnits(),
+                            epochDay(after.creationDate()));
+                }
+                case UPDATED -> {
+                    // partial changes only carry the changed attributes
+                    if (after.empType() != null) {
+                        target.updateType(after.employeeId(), after.empType());
+                    }
+                    CurrencyFactory.Currency currency = currencyOf(after.salary());
+                    if (currency != null) {
+                        target.updateSalary(after.employeeId(), currency,
+                                MinorUnitMoney.of(after.salary()).minorUnits());
+                    }
+                }
+            }
+        } catch (ArithmeticException ex) {
+            // the salary is computed before the row is touched
+            log.warn("Salary of employee {} does not fit in minor units", event.employeeId());
+            target.markUnmapped(event.employeeId());
+        }
+    }
+
+    /**
+     * Number of employees and total annual salary per currency.
+     *
+     * @return empty until the snapshot has been built
+     */
+    public Map<String, Object> payrollByCurrency() {
+        long[] counts = new long[CURRENCIES.length];
+        long[] sums = new long[CURRENCIES.length];
+
+        return read(c -> {
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b % CURRENCIES.length] += c.bucketCounts[b];
+                sums[b % CURRENCIES.length] += c.bucketSums[b];
+            }
+        }, () -> {
+            Map<String, Object> result = new TreeMap<>();
+            for (int k = 0; k < CURRENCIES.length; k++) {
+                if (counts[k] > 0) {
+                    result.put(CURRENCIES[k].toString(), Map.of("employees", counts[k],
+                            "totalSalary", MinorUnitMoney.of(sums[k], CURRENCIES[k])));
+                }
+            }
+            return result;
+        }, Map.of());
+    }
+
+    /**
+     * Total annual salary of all employees in one currency, summed per
+     * salary currency first and converted with the cached exchange rates.
+     *
+     * @param target reporting currency
+     * @return the total and the salaries without an exchange rate, which
+     * are left out of it, empty until the snapshot has been built
+     */
+    public Map<String, Object> payrollIn(CurrencyFactory.Currency target) {
+        long[] sums = new long[CURRENCIES.length];
+        long[] employees = new long[1];
+        boolean built = read(c -> {
+            for (int b = 0; b < BUCKETS; b++) {
+                sums[b % CURRENCIES.length] += c.bucketSums[b];
+            }
+            employees[0] += c.live;
+        }, () -> true, false);
+        if (!built) {
+            return Map.of();
+        }
+
+        FxRateTable.PartialTotal total = fxRateTable.partialTotal(sums, target);
+        Map<String, Object> unconverted = new TreeMap<>();
+        for (int k = 0; k < CURRENCIES.length; k++) {
+            if (total.unconverted()[k] != 0) {
+                unconverted.put(CURRENCIES[k].toString(), MinorUnitMoney.of(total.unconverted()[k], CURRENCIES[k]));
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("currency", target.toString());
+        result.put("employees", employees[0]);
+        result.put("totalSalary", MinorUnitMoney.of(total.minorUnits(), target));
+        result.put("unconverted", unconverted);
+        return result;
+    }
+
+    /**
+     * Average annual salary per employee type, per currency since amounts
+     * of different currencies cannot be averaged.
+     *
+     * @return empty until the snapshot has been built
+     */
+    public Map<String, Object> averageSalaryByType() {
+        long[] counts = new long[BUCKETS];
+        long[] sums = new long[BUCKETS];
+
+        return read(c -> addBuckets(c, counts, sums), () -> {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (EmployeeType type : TYPES) {
+                Map<String, MinorUnitMoney> averages = new TreeMap<>();
+
+                for (CurrencyFactory.Currency currency : CURRENCIES) {
+                    int b = bucket(type, currency);
+                    if (counts[b] > 0) {
+                        averages.put(currency.toString(), MinorUnitMoney.of(sums[b], currency).dividedBy(counts[b]));
+                    }
+                }
+                if (!averages.isEmpty()) {
+                    result.put(type.getValue(), averages);
+                }
+            }
+            return result;
+        }, Map.of());
+    }
+
+    /**
+     *
+     * @return number of employees, including those whose type or salary
+     * currency is not aggregated; empty until the snapshot has been built
+     */
+    public OptionalLong employeeCount() {
+        long[] count = new long[1];
+
+        return read(c -> count[0] += c.live + c.unmapped.size(), () -> OptionalLong.of(count[0]),
+                OptionalLong.empty());
+    }
+
+    /**
+     *
+     * @return number of employees per bucket, empty until the snapshot has
+     * been built
+     */
+    public Optional<long[]> employeeCountsByBucket() {
+        long[] counts = new long[BUCKETS];
+
+        return read(c -> addBuckets(c, counts, null), () -> Optional.of(counts), Optional.empty());
+    }
+
+    /**
+     *
+     * @return copies of the salary sketches per bucket, empty until the
+     * snapshot has been built
+     */
+    public Optional<SalarySketch[]> copySalarySketches() {
+        SalarySketch[] copies = new SalarySketch[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) {
+            copies[b] = new SalarySketch(relativeAccuracy);
+        }
+
+        return read(c -> {
+            for (int b = 0; b < BUCKETS; b++) {
+                copies[b].merge(c.sketches[b]);
+            }
+        }, () -> Optional.of(copies), Optional.empty());
+    }
+
+    /**
+     *
+     * @return relative accuracy of the salary sketches
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Count, sum, minimum and maximum of the salaries per bucket, added up
+     * from the aggregates of the stripes. A change that removes the minimum
+     * or maximum of a bucket leaves it inexact; the bucket is recomputed from
+     * the rows of its stripe by the next call.
+     *
+     * @return empty until the snapshot has been built
+     */
+    public Optional<SalaryBuckets> salaryBuckets() {
+        if (!ready) {
+            return Optional.empty();
+        }
+
+        long[] counts = new long[BUCKETS];
+        long[] sums = new long[BUCKETS];
+        long[] mins = new long[BUCKETS];
+        long[] maxs = new long[BUCKETS];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        Arrays.fill(maxs, Long.MIN_VALUE);
+
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                if (stripe.columns.inexactBuckets == 0) {
+                    addExtremes(stripe.columns, counts, sums, mins, maxs);
+                    continue;
+                }
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+
+            stripe.write(() -> {
+                stripe.columns.recomputeExtremes();
+                addExtremes(stripe.columns, counts, sums, mins, maxs);
+            });
+        }
+        return Optional.of(new SalaryBuckets(counts, sums, mins, maxs));
+    }
+
+    /**
+     *
+     * @return time the snapshot was last rebuilt from the table, null before
+     */
+    public OffsetDateTime getLastRebuilt() {
+        return lastRebuilt;
+    }
+
+    /**
+     * Hires per calendar month of the creation date, employees without a
+     * creation date are not counted.
+     *
+     * @param from first day included, null for no lower bound
+     * @param to last day included, null for no upper bound
+     * @return empty until the snapshot has been built
+     */
+    public Map<String, Object> hiresByMonth(LocalDate from, LocalDate to) {
+        int fromDay = from == null ? Integer.MIN_VALUE : Math.toIntExact(from.toEpochDay());
+        int toDay = to == null ? Integer.MAX_VALUE : Math.toIntExact(to.toEpochDay());
+
+        int[] range = {Integer.MAX_VALUE, Integer.MIN_VALUE};
+        read(c -> {
+            for (int i = 0; i < c.size; i++) {
+                int day = c.epochDays[i];
+                if (c.types[i] != DELETED && day != NO_DAY && day >= fromDay && day <= toDay) {
+                    range[0] = Math.min(range[0], day);
+                    range[1] = Math.max(range[1], day);
+                }
+            }
+        }, () -> null, null);
+        int minDay = range[0];
+        int maxDay = range[1];
+        if (minDay > maxDay) {
+            return Map.of();
+        }
+
+        // rows changed since the first pass are counted if they fall into the range
+        long[] byDay = new long[maxDay - minDay + 1];
+        read(c -> {
+            for (int i = 0; i < c.size; i++) {
+                int day = c.epochDays[i];
+                if (c.types[i] != DELETED && day >= minDay && day <= maxDay) {
+                    byDay[day - minDay]++;
+                }
+            }
+        }, () -> null, null);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        YearMonth month = null;
+        long hires = 0;
+
+        for (int d = 0; d < byDay.length; d++) {
+            YearMonth dayMonth = YearMonth.from(LocalDate.ofEpochDay(minDay + (long) d));
+            if (!dayMonth.equals(month)) {
+                if (hires > 0) {
+                    result.put(month.toString(), hires);
+                }
+                month = dayMonth;
+                hires = 0;
+            }
+            hires += byDay[d];
+        }
+        if (hires > 0) {
+            result.put(month.toString(), hires);
+        }
+        return result;
+    }
+
+    /**
+     *
+     * @return size and memory figures of the snapshot
+     */
+    public Map<String, Object> getStats() {
+        long[] figures = new long[4];
+
+        for (Stripe stripe : stripes) {
+            stripe.read(c -> {
+                figures[0] += c.live;
+                figures[1] += c.unmapped.size();
+                figures[2] += c.size;
+                figures[3] += c.estimatedBytes();
+            });
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("employees", figures[0]);
+        stats.put("unaggregated", figures[1]);
+        stats.put("rows", figures[2]);
+        stats.put("stripes", STRIPES);
+        stats.put("estimatedBytes", figures[3]);
+        stats.put("lastRebuilt", lastRebuilt);
+        return stats;
+    }
+
+    /**
+     * Visits the stripes one after the other, each under its read lock, and
+     * returns the result of what the visitor collected.
+     */
+    private <T> T read(Consumer<Columns> visitor, Supplier<T> result, T notReady) {
+        if (!ready) {
+            return notReady;
+        }
+
+        for (Stripe stripe : stripes) {
+            stripe.read(visitor);
+        }
+        return result.get();
+    }
+
+    private static void addBuckets(Columns c, long[] counts, long[] sums) {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] += c.bucketCounts[b];
+            if (sums != null) {
+                sums[b] += c.bucketSums[b];
+            }
+        }
+    }
+
+    private static void addExtremes(Columns c, long[] counts, long[] sums, long[] mins, long[] maxs) {
+        addBuckets(c, counts, sums);
+        for (int b = 0; b < BUCKETS; b++) {
+            mins[b] = Math.min(mins[b], c.mins[b]);
+            maxs[b] = Math.max(maxs[b], c.maxs[b]);
+        }
+    }
+
+    /**
+     *
+     * @param type
+     * @param currency
+     * @return index of the bucket of the employee type and salary currency
+     */
+    static int bucket(EmployeeType type, CurrencyFactory.Currency currency) {
+        return type.ordinal() * CURRENCIES.length + currency.ordinal();
+    }
+
+    static EmployeeType bucketType(int bucket) {
+        return TYPES[bucket / CURRENCIES.length];
+    }
+
+    static CurrencyFactory.Currency bucketCurrency(int bucket) {
+        return CURRENCIES[bucket % CURRENCIES.length];
+    }
+
+    private static int stripeIndex(String employeeId) {
+        int h = employeeId == null ? 0 : employeeId.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private static CurrencyFactory.Currency currencyOf(MonetaryAmount salary) {
+        return salary == null ? null : CurrencyFactory.Currency.fromString(salary.getCurrency().getCurrencyCode());
+    }
+
+    /**
+     * Day of the creation timestamp, which is stored in UTC, or
+     * {@link #NO_DAY}.
+     */
+    private static int epochDay(Object creationDate) {
+        LocalDate date = switch (creationDate) {
+            case OffsetDateTime odt ->
+                odt.atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+            case LocalDateTime ldt ->
+                ldt.toLocalDate();
+            case Timestamp ts ->
+                ts.toLocalDateTime().toLocalDate();
+            case null, default ->
+                null;
+        };
+        return date == null ? NO_DAY : Math.toIntExact(date.toEpochDay());
+    }
+
+    /**
+     * Count, sum, minimum and maximum of the salaries in minor units, indexed
+     * by bucket. Minimum and maximum of an empty bucket are
+     * {@link Long#MAX_VALUE} and {@link Long#MIN_VALUE}.
+     *
+     * @param counts
+     * @param sums
+     * @param mins
+     * @param maxs
+     */
+    public record SalaryBuckets(long[] counts, long[] sums, long[] mins, long[] maxs) {
+    }
+
+    /**
+     * The rows of the employees whose id falls into the stripe, see
+     * {@link #stripeIndex(String)}.
+     */
+    private static final class Stripe {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // guarded by lock
+        private Columns columns;
+        // guarded by lock, collects the changes that happen while a rebuild runs
+        private List<EmployeeChangedEvent> pending;
+
+        private Stripe(Columns columns) {
+            this.columns = columns;
+        }
+
+        void read(Consumer<Columns> visitor) {
+            lock.readLock().lock();
+            try {
+                visitor.accept(columns);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void write(Runnable action) {
+            lock.writeLock().lock();
+            try {
+                action.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The columns, grown by doubling. A row whose type is {@link #DELETED}
+     * is free and listed in {@code free}.
+     */
+    private static final class Columns {
+
+        private long[] salaries;
+        private short[] currencies;
+        private byte[] types;
+        private int[] epochDays;
+
+        private int size;
+        private int live;
+
+        // count, salary sum, extremes and salary sketch of the live rows per bucket
+        private final long[] bucketCounts = new long[BUCKETS];
+        private final long[] bucketSums = new long[BUCKETS];
+        private final long[] mins = new long[BUCKETS];
+        private final long[] maxs = new long[BUCKETS];
+        private final SalarySketch[] sketches = new SalarySketch[BUCKETS];
+
+        // buckets whose minimum or maximum left, their extremes are bounds only
+        private final boolean[] inexact = new boolean[BUCKETS];
+        private int inexactBuckets;
+
+        private final Map<String, Integer> rows = new HashMap<>();
+        private int[] free = new int[16];
+        private int freeCount;
+
+        // employees counted but not aggregated, their type or currency is unknown
+        private final Set<String> unmapped = new HashSet<>();
+
+        private Columns(int capacity, double relativeAccuracy) {
+            salaries = new long[capacity];
+            currencies = new short[capacity];
+            types = new byte[capacity];
+            epochDays = new int[capacity];
+
+            Arrays.fill(mins, Long.MAX_VALUE);
+            Arrays.fill(maxs, Long.MIN_VALUE);
+            for (int b = 0; b < BUCKETS; b++) {
+                sketches[b] = new SalarySketch(relativeAccuracy);
+            }
+        }
+
+        void upsert(String employeeId, EmployeeType type, CurrencyFactory.Currency currency, long salary,
+                int epochDay) {
+            if (employeeId == null || type == null || currency == null) {
+                // incomplete rows would be counted in the wrong bucket
+                markUnmapped(employeeId);
+                return;
+            }
+
+            Integer existing = rows.get(employeeId);
+            int row;
+            if (existing != null) {
+                row = existing;
+                leaveBucket(row);
+            } else {
+                row = allocate();
+                rows.put(employeeId, row);
+                live++;
+            }
+
+            salaries[row] = salary;
+            currencies[row] = (short) currency.ordinal();
+            types[row] = (byte) type.ordinal();
+            epochDays[row] = epochDay;
+            enterBucket(row);
+        }
+
+        void updateType(String employeeId, EmployeeType type) {
+            Integer row = rows.get(employeeId);
+            if (row != null) {
+                leaveBucket(row);
+                types[row] = (byte) type.ordinal();
+                enterBucket(row);
+            }
+        }
+
+        void updateSalary(String employeeId, CurrencyFactory.Currency currency, long salary) {
+            Integer row = rows.get(employeeId);
+            if (row != null && currency != null) {
+                leaveBucket(row);
+                currencies[row] = (short) currency.ordinal();
+                salaries[row] = salary;
+                enterBucket(row);
+            }
+        }
+
+        void markUnmapped(String employeeId) {
+            remove(employeeId);
+            if (employeeId != null) {
+                unmapped.add(employeeId);
+            }
+        }
+
+        void remove(String employeeId) {
+            Integer row = employeeId == null ? null : rows.remove(employeeId);
+            if (row == null) {
+                unmapped.remove(employeeId);
+                return;
+            }
+
+            leaveBucket(row);
+            types[row] = DELETED;
+            live--;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount * 2);
+            }
+            free[freeCount++] = row;
+        }
+
+        /**
+         * Recomputes the extremes of the inexact buckets with one pass over
+         * the rows.
+         */
+        void recomputeExtremes() {
+            for (int b = 0; b < BUCKETS; b++) {
+                if (inexact[b]) {
+                    mins[b] = Long.MAX_VALUE;
+                    maxs[b] = Long.MIN_VALUE;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (types[i] != DELETED) {
+                    int b = types[i] * CURRENCIES.length + currencies[i];
+                    if (inexact[b]) {
+                        mins[b] = Math.min(mins[b], salaries[i]);
+                        maxs[b] = Math.max(maxs[b], salaries[i]);
+                    }
+                }
+            }
+            Arrays.fill(inexact, false);
+            inexactBuckets = 0;
+        }
+
+        private void enterBucket(int row) {
+            int b = types[row] * CURRENCIES.length + currencies[row];
+            long salary = salaries[row];
+            bucketCounts[b]++;
+            bucketSums[b] += salary;
+            mins[b] = Math.min(mins[b], salary);
+            maxs[b] = Math.max(maxs[b], salary);
+            sketches[b].add(salary);
+        }
+
+        private void leaveBucket(int row) {
+            int b = types[row] * CURRENCIES.length + currencies[row];
+            long salary = salaries[row];
+            bucketCounts[b]--;
+            bucketSums[b] -= salary;
+            sketches[b].remove(salary);
+
+            if (bucketCounts[b] == 0) {
+                mins[b] = Long.MAX_VALUE;
+                maxs[b] = Long.MIN_VALUE;
+                if (inexact[b]) {
+                    inexact[b] = false;
+                    inexactBuckets--;
+                }
+            } else if ((salary == mins[b] || salary == maxs[b]) && !inexact[b]) {
+                inexact[b] = true;
+                inexactBuckets++;
+            }
+        }
+
+        private int allocate() {
+            if (freeCount > 0) {
+                return free[--freeCount];
+            }
+            if (size == salaries.length) {
+                int capacity = size * 2;
+                salaries = Arrays.copyOf(salaries, capacity);
+                currencies = Arrays.copyOf(currencies, capacity);
+                types = Arrays.copyOf(types, capacity);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+            }
+            return size++;
+        }
+
+        long estimatedBytes() {
+            long sketchBytes = 0;
+            for (SalarySketch sketch : sketches) {
+                sketchBytes += sketch.memoryBytes();
+            }
+            // 15 bytes of columns per row, the id map dominates
+            return (long) salaries.length * (8 + 2 + 1 + 4) + rows.size() * 96L + sketchBytes;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.money.MinorUnitMoney;
+import org.springframework.stereotype.Component;
+
+/**
+ * Count, sum, minimum and maximum of the salaries per employee type and
+ * currency, read from the {@link EmployeeSalarySnapshot} without touching
+ * the table. All four are maintained per stripe of the snapshot and exact as
+ * soon as it is built, a read only adds up the stripes.
+ *
+ * @author samueladebowale
+ */
+@Component
+@RequiredArgsConstructor
+public class EmployeeSalaryStats {
+
+    private final EmployeeSalarySnapshot salarySnapshot;
+
+    /**
+     *
+     * @return one entry per employee type and currency with employees
+     */
+    public Map<String, Object> getStats() {
+        Optional<EmployeeSalarySnapshot.SalaryBuckets> current = salarySnapshot.salaryBuckets();
+        List<Map<String, Object>> aggregates = new ArrayList<>();
+
+        current.ifPresent(buckets -> {
+            for (int i = 0; i < EmployeeSalarySnapshot.BUCKETS; i++) {
+                long count = buckets.counts()[i];
+                if (count <= 0) {
+                    continue;
+                }
+
+                CurrencyFactory.Currency currency = EmployeeSalarySnapshot.bucketCurrency(i);
+                Map<String, Object> aggregate = new LinkedHashMap<>();
+                aggregate.put("employeeType", EmployeeSalarySnapshot.bucketType(i).getValue());
+                aggregate.put("currency", currency.toString());
+                aggregate.put("count", count);
+                aggregate.put("sum", MinorUnitMoney.of(buckets.sums()[i], currency));
+                aggregate.put("min", MinorUnitMoney.of(buckets.mins()[i], currency));
+                aggregate.put("max", MinorUnitMoney.of(buckets.maxs()[i], currency));
+                aggregates.add(aggregate);
+            }
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("aggregates", aggregates);
+        result.put("stale", current.isEmpty());
+        result.put("lastReconciled", salarySnapshot.getLastRebuilt());
+        return result;
+    }
+
+    /**
+     * Rebuilds the salary snapshot from the table.
+     *
+     * @return the aggregates after the rebuild
+     */
+    public Map<String, Object> reconcile() {
+        salarySnapshot.rebuild();
+
+        return getStats();
+    }
+}
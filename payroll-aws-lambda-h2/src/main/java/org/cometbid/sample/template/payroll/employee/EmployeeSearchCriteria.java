@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.gson.annotations.SerializedName;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import static org.cometbid.sample.template.payroll.employee.Employee.CURRENCY;
+import static org.cometbid.sample.template.payroll.employee.Employee.EMAIL;
+import static org.cometbid.sample.template.payroll.employee.Employee.EMPLOYEE_TYPE;
+import static org.cometbid.sample.template.payroll.employee.Employee.FIRST_NAME;
+import static org.cometbid.sample.template.payroll.employee.Employee.LAST_NAME;
+
+/**
+ * Search criteria, every field is optional and the given ones are combined
+ * with AND. Names match by case insensitive prefix, the other fields by
+ * equality or inclusive range. The employee type is kept as given so that an
+ * unknown one is rejected instead of dropped.
+ *
+ * @author samueladebowale
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeSearchCriteria {
+
+    public static final String MIN_SALARY = "minSalary";
+    public static final String MAX_SALARY = "maxSalary";
+    public static final String CREATED_FROM = "createdFrom";
+    public static final String CREATED_TO = "createdTo";
+
+    @SerializedName(FIRST_NAME)
+    @JsonProperty(FIRST_NAME)
+    @Size(max = 100, message = "{FirstName.size}")
+    private String firstName;
+
+    @SerializedName(LAST_NAME)
+    @JsonProperty(LAST_NAME)
+    @Size(max = 100, message = "{LastName.size}")
+    private String lastName;
+
+    @SerializedName(EMAIL)
+    @JsonProperty(EMAIL)
+    @Size(max = 100, message = "{User.email.size}")
+    private String email;
+
+    @SerializedName(EMPLOYEE_TYPE)
+    @JsonProperty(EMPLOYEE_TYPE)
+    private String employeeType;
+
+    @SerializedName(CURRENCY)
+    @JsonProperty(CURRENCY)
+    @Size(min = 3, max = 3, message = "{search.currency.size}")
+    private String currency;
+
+    @SerializedName(MIN_SALARY)
+    @JsonProperty(MIN_SALARY)
+    @PositiveOrZero
+    private BigDecimal minSalary;
+
+    @SerializedName(MAX_SALARY)
+    @JsonProperty(MAX_SALARY)
+    @Positive
+    private BigDecimal maxSalary;
+
+    @SerializedName(CREATED_FROM)
+    @JsonProperty(CREATED_FROM)
+    private OffsetDateTime createdFrom;
+
+    @SerializedName(CREATED_TO)
+    @JsonProperty(CREATED_TO)
+    private OffsetDateTime createdTo;
+
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Access to the Hibernate second-level cache regions holding employees.
+ * <p>
+ * Employees are only written through the persistence context and JPQL bulk
+ * statements, which keep the regions and the query cache consistent on
+ * their own.
+ *
+ * @author samueladebowale
+ */
+@Component
+public class EmployeeSecondLevelCache {
+
+    private final SessionFactory sessionFactory;
+
+    public EmployeeSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        Statistics statistics = sessionFactory.getStatistics();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", statistics.isStatisticsEnabled());
+        stats.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        stats.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        stats.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        stats.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        stats.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        stats.put("queryCachePuts", statistics.getQueryCachePutCount());
+        stats.put("entityLoads", statistics.getEntityLoadCount());
+        stats.put("queryExecutions", statistics.getQueryExecutionCount());
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Employee.CACHE_REGION);
+        if (region != null) {
+            stats.put("regionHits", region.getHitCount());
+            stats.put("regionMisses", region.getMissCount());
+            stats.put("regionPuts", region.getPutCount());
+            stats.put("regionElementsInMemory", region.getElementCountInMemory());
+        }
+        return stats;
+    }
+}
@@ -23,6 +23,9 @@
  */
 package org.cometbid.sample.template.payroll.employee;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  *
  * @author samueladebowale
@@ -31,12 +34,16 @@ public interface EmployeeService {
 
     Employee saveEmployee(CreateEmployeeRequest requestDto);
 
+    List<EmployeeBatchResult> saveEmployees(List<CreateEmployeeRequest> requestDtos);
+
     Employee updateEmployee(UpdEmployeeRequest requestDto, final String employeeId);
 
-    Employee updateEmployeeName(EmployeeNameDTO employeeDto, final String employeeId);
+    void updateEmployeeName(EmployeeNameDTO employeeDto, final String employeeId, final long expectedVersion);
 
-    Employee updateEmployeeType(EmployeeTypeDTO employeeDto, final String employeeId);
+    void updateEmployeeType(EmployeeTypeDTO employeeDto, final String employeeId, final long expectedVersion);
     
-    void deleteEmployee(Employee employee);
+    void deleteEmployee(String employeeId);
+
+    int deleteEmployees(Collection<String> employeeIds);
 
 }
@@ -23,14 +23,33 @@
  */
 package org.cometbid.sample.template.payroll.employee;
 
+import com.google.common.collect.Lists;
+import jakarta.validation.ConstraintViolation;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import javax.money.MonetaryAmount;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
 import org.cometbid.component.api.employee.exceptions.EmployeeAlreadyExistException;
 import org.cometbid.component.api.employee.exceptions.EmployeeNotFoundException;
 import org.cometbid.component.api.generic.exceptions.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 /**
  *
@@ -43,9 +62,25 @@ public class EmployeeServiceImpl implements EmployeeService {
 
     private final EmployeeRepository employeeRepository;
     private final EmployeeBuilder employeeBuilder;
-    private final EmployeeMapper employeeMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LocalValidatorFactoryBean validator;
+    private final EmployeeBatchWriter batchWriter;
+    private final EmployeeEmailFilter emailFilter;
+
+    // bind parameters per email lookup
+    private static final int EMAIL_LOOKUP_SIZE = 1000;
+    private static final String EMAIL_UNIQUE_INDEX = "UN_EMP_EMAIL_IDX";
+
+    @Value("${api.employee.batch.max-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${api.employee.batch.chunk-size:500}")
+    private int batchChunkSize;
 
     /**
+     * The existence query only runs when the email filter cannot rule the
+     * email out, the unique email index settles any remaining race: a normal
+     * create is a single INSERT.
      *
      * @param requestDto
      * @return
@@ -56,15 +91,147 @@ public class EmployeeServiceImpl implements EmployeeService {
 
         String email = requestDto.getEmail();
 
-        if (employeeRepository.existsByEmail(email)) {
-            throw new EmployeeAlreadyExistException(new Object[]{"email: " + email});
+        if (emailFilter.mightContain(email)) {
+            boolean exists = employeeRepository.existsByEmail(email);
+            emailFilter.recordCheck(exists);
+
+            if (exists) {
+                throw new EmployeeAlreadyExistException(new Object[]{"email: " + email});
+            }
         }
 
         log.info("Before Employee Create: ");
         Employee updatedEmployee = employeeBuilder.toEmployeeEntity(requestDto);
         log.info("After Employee Create: " + updatedEmployee);
 
-        return employeeRepository.save(updatedEmployee);
+        try {
+            batchWriter.insert(List.of(updatedEmployee));
+        } catch (DataIntegrityViolationException ex) {
+            if (StringUtils.containsIgnoreCase(ex.getMostSpecificCause().getMessage(), EMAIL_UNIQUE_INDEX)) {
+                throw new EmployeeAlreadyExistException(new Object[]{"email: " + email});
+            }
+            throw ex;
+        }
+
+        return updatedEmployee;
+    }
+
+    /**
+     * Creates many employees at once: every item is validated, duplicate
+     * emails are found with one set-based query and the remaining employees
+     * are inserted with JDBC batching, one transaction per chunk. A failing
+     * chunk does not affect the others, a chunk rejected by a constraint is
+     * retried row by row so that only the offending items fail.
+     *
+     * @param requestDtos
+     * @return one result per item, in request order
+     */
+    @Override
+    public List<EmployeeBatchResult> saveEmployees(List<CreateEmployeeRequest> requestDtos) {
+        log.info("Create {} employees", requestDtos.size());
+
+        if (requestDtos.size() > maxBatchSize) {
+            throw new BadRequestException("batch.size.max", new Object[]{maxBatchSize});
+        }
+
+        EmployeeBatchResult[] results = new EmployeeBatchResult[requestDtos.size()];
+        Map<String, Integer> byEmail = new LinkedHashMap<>();
+
+        for (int i = 0; i < requestDtos.size(); i++) {
+            CreateEmployeeRequest requestDto = requestDtos.get(i);
+
+            if (requestDto == null) {
+                results[i] = EmployeeBatchResult.rejected(i, EmployeeBatchResult.Status.INVALID,
+                        List.of("Item could not be read"));
+                continue;
+            }
+
+            Set<ConstraintViolation<CreateEmployeeRequest>> violations = validator.validate(requestDto);
+            if (!violations.isEmpty()) {
+                results[i] = EmployeeBatchResult.rejected(i, EmployeeBatchResult.Status.INVALID,
+                        violations.stream().map(v -> v.getPropertyPath() + ": " + v.getMessage()).toList());
+            } else if (byEmail.putIfAbsent(requestDto.getEmail(), i) != null) {
+                results[i] = EmployeeBatchResult.rejected(i, EmployeeBatchResult.Status.DUPLICATE,
+                        List.of("email: " + requestDto.getEmail()));
+            }
+        }
+
+        List<String> candidateEmails = byEmail.keySet().stream()
+                .filter(emailFilter::mightContain)
+                .toList();
+
+        Set<String> existingEmails = new HashSet<>();
+        for (List<String> emails : Lists.partition(candidateEmails, EMAIL_LOOKUP_SIZE)) {
+            Set<String> found = new HashSet<>(employeeRepository.findExistingEmails(emails));
+
+            existingEmails.addAll(found);
+            for (String email : emails) {
+                emailFilter.recordCheck(found.contains(email));
+            }
+        }
+
+        List<Employee> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+
+        byEmail.forEach((email, i) -> {
+            if (existingEmails.contains(email)) {
+                results[i] = EmployeeBatchResult.rejected(i, EmployeeBatchResult.Status.DUPLICATE,
+                        List.of("email: " + email));
+                return;
+            }
+
+            accepted.add(employeeBuilder.toEmployeeEntity(requestDtos.get(i)));
+            acceptedIndexes.add(i);
+        });
+
+        for (int from = 0; from < accepted.size(); from += batchChunkSize) {
+            int to = Math.min(from + batchChunkSize, accepted.size());
+            List<Employee> chunk = accepted.subList(from, to);
+
+            try {
+                batchWriter.insert(chunk);
+
+                for (int j = from; j < to; j++) {
+                    results[acceptedIndexes.get(j)] = EmployeeBatchResult.created(acceptedIndexes.get(j),
+                            accepted.get(j).getEmployeeId());
+                }
+            } catch (DataIntegrityViolationException ex) {
+                log.info("Batch chunk {}..{} rejected, retrying row by row: {}", from, to,
+                        ex.getMostSpecificCause().getMessage());
+
+                for (int j = from; j < to; j++) {
+                    int index = acceptedIndexes.get(j);
+                    results[index] = insertOne(index, requestDtos.get(index));
+                }
+            } catch (DataAccessException ex) {
+                log.warn("Batch chunk {}..{} failed", from, to, ex);
+
+                for (int j = from; j < to; j++) {
+                    results[acceptedIndexes.get(j)] = EmployeeBatchResult.rejected(acceptedIndexes.get(j),
+                            EmployeeBatchResult.Status.FAILED, List.of(ex.getMostSpecificCause().getMessage()));
+                }
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private EmployeeBatchResult insertOne(int index, CreateEmployeeRequest requestDto) {
+        try {
+            // the entity of the failed chunk may carry state of the rolled back persist
+            Employee employee = employeeBuilder.toEmployeeEntity(requestDto);
+            batchWriter.insert(List.of(employee));
+            return EmployeeBatchResult.created(index, employee.getEmployeeId());
+        } catch (DataAccessException ex) {
+            String cause = ex.getMostSpecificCause().getMessage();
+
+            if (ex instanceof DataIntegrityViolationException
+                    && StringUtils.containsIgnoreCase(cause, EMAIL_UNIQUE_INDEX)) {
+                return EmployeeBatchResult.rejected(index, EmployeeBatchResult.Status.DUPLICATE,
+                        List.of("email: " + requestDto.getEmail()));
+            }
+            return EmployeeBatchResult.rejected(index, EmployeeBatchResult.Status.FAILED, List.of(cause));
+        }
     }
 
     /**
@@ -79,13 +246,15 @@ public class EmployeeServiceImpl implements EmployeeService {
 
         if (StringUtils.isNotBlank(employeeId)) {
 
-            Optional<Employee> employeeOpt = employeeRepository.findByEmployeeIdIgnoreCase(employeeId);
+            Optional<Employee> employeeOpt = employeeRepository.findByEmployeeId(
+                    Employee.normalizeEmployeeId(employeeId));
 
             if (employeeOpt.isPresent()) {
+                EmployeeState before = EmployeeState.of(employeeOpt.get());
                 Employee updatedEmployee = employeeBuilder.updateEmployee(employeeOpt.get(), requestDto);
 
                 log.info("Employee Update: " + updatedEmployee);
-                return employeeRepository.save(updatedEmployee);
+                return saveAndPublish(before, updatedEmployee);
             }
             throw new EmployeeNotFoundException();
         }
@@ -93,58 +262,136 @@ public class EmployeeServiceImpl implements EmployeeService {
     }
 
     /**
+     * Single UPDATE of the name columns, the employee is not loaded.
      *
      * @param employeeDto
      * @param employeeId
-     * @return
+     * @param expectedVersion version the caller last saw, or
+     * {@link EmployeeVersionTag#ANY_VERSION}
      */
     @Override
-    public Employee updateEmployeeName(final EmployeeNameDTO employeeDto, final String employeeId) {
+    public void updateEmployeeName(final EmployeeNameDTO employeeDto, final String employeeId,
+            final long expectedVersion) {
         log.info("Update employee name {}", employeeDto);
 
-        Optional<Employee> employeeOpt = employeeRepository.findByEmployeeIdIgnoreCase(employeeId);
-
-        if (employeeOpt.isPresent()) {
-            log.info("Employee is present {}", employeeDto != null);
-            Employee updatedEmployee = employeeMapper.updateEmployeeName(employeeOpt.get(), employeeDto);
+        String empId = Employee.normalizeEmployeeId(employeeId);
+        int updated = employeeRepository.updateNameByEmployeeId(empId, employeeDto.getFirstName(),
+                employeeDto.getMiddleName(), employeeDto.getLastName(), expectedVersion);
 
-            log.info("Update Employee is present {}", updatedEmployee);
-            return employeeRepository.save(updatedEmployee);
-        }
-
-        throw new EmployeeNotFoundException();
+        checkUpdated(updated, empId, expectedVersion);
+        eventPublisher.publishEvent(EmployeeChangedEvent.updated(new EmployeeState(empId,
+                employeeDto.getFirstName(), employeeDto.getMiddleName(), employeeDto.getLastName(),
+                null, null, null, null, nextVersion(expectedVersion))));
     }
 
     /**
+     * Single UPDATE of the type and salary columns, the employee is not
+     * loaded and omitted values leave their column unchanged.
      *
      * @param employeeDto
      * @param employeeId
-     * @return
+     * @param expectedVersion version the caller last saw, or
+     * {@link EmployeeVersionTag#ANY_VERSION}
      */
     @Override
-    public Employee updateEmployeeType(final EmployeeTypeDTO employeeDto, final String employeeId) {
+    public void updateEmployeeType(final EmployeeTypeDTO employeeDto, final String employeeId,
+            final long expectedVersion) {
         log.info("Update employee type {}", employeeDto);
 
-        Optional<Employee> employeeOpt = employeeRepository.findByEmployeeIdIgnoreCase(employeeId);
+        String empId = Employee.normalizeEmployeeId(employeeId);
+        MonetaryAmount salary = employeeDto.getSalary();
+        int updated = employeeRepository.updateTypeByEmployeeId(empId, employeeDto.getEmployeeType(),
+                salary != null ? salary.getNumber().numberValue(BigDecimal.class) : null,
+                salary != null ? salary.getCurrency().getCurrencyCode() : null,
+                expectedVersion);
 
-        if (employeeOpt.isPresent()) {
-            log.info("Employee is present {}", employeeDto != null);
-            Employee updatedEmployee = employeeMapper.updateEmployeeType(employeeOpt.get(), employeeDto);
+        checkUpdated(updated, empId, expectedVersion);
+        eventPublisher.publishEvent(EmployeeChangedEvent.updated(new EmployeeState(empId,
+                null, null, null, null, employeeDto.getEmployeeType(), salary, null,
+                nextVersion(expectedVersion))));
+    }
+
+    /**
+     * The version an UPDATE conditional on {@code expectedVersion} commits.
+     * Without a condition it is unknown, listeners then invalidate what
+     * they hold for the employee without relying on a version.
+     */
+    private static long nextVersion(long expectedVersion) {
+        return expectedVersion == EmployeeVersionTag.ANY_VERSION ? EmployeeVersionTag.ANY_VERSION : expectedVersion + 1;
+    }
 
-            log.info("Update Employee is present {}", updatedEmployee);
-            return employeeRepository.save(updatedEmployee);
+    /**
+     * No updated row means either an unknown employee or, when a version was
+     * expected, a concurrent change.
+     */
+    private void checkUpdated(int updated, String employeeId, long expectedVersion) {
+        if (updated > 0) {
+            return;
         }
 
-        throw new EmployeeNotFoundException();
+        if (expectedVersion != EmployeeVersionTag.ANY_VERSION && employeeRepository.existsByEmployeeId(employeeId)) {
+            throw new OptimisticLockingFailureException(
+                    "Employee " + employeeId + " is no longer at version " + expectedVersion);
+        }
+        throw new EmployeeNotFoundException("employee.notfound.byEmpId", new Object[]{employeeId});
+    }
+
+    /**
+     * Single DELETE, the employee is not loaded and the affected row count
+     * tells a deleted employee from an unknown one.
+     *
+     * @param employeeId
+     */
+    @Override
+    public void deleteEmployee(final String employeeId) {
+        log.info("Delete employee {}", employeeId);
+
+        if (delete(List.of(Employee.normalizeEmployeeId(employeeId))) == 0) {
+            throw new EmployeeNotFoundException("employee.notfound.byEmpId", new Object[]{employeeId});
+        }
     }
 
     /**
+     * Deletes all given employees with one statement.
      *
-     * @param employee
+     * @param employeeIds
+     * @return number of employees that existed and were deleted
      */
     @Override
-    public void deleteEmployee(final Employee employee) {
+    public int deleteEmployees(final Collection<String> employeeIds) {
+        log.info("Delete {} employees", employeeIds.size());
+
+        if (employeeIds.size() > maxBatchSize) {
+            throw new BadRequestException("batch.size.max", new Object[]{maxBatchSize});
+        }
+        if (employeeIds.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> empIds = new LinkedHashSet<>();
+        employeeIds.forEach(employeeId -> empIds.add(Employee.normalizeEmployeeId(employeeId)));
+
+        return delete(empIds);
+    }
+
+    /**
+     * The rows are not read, the change events only carry the ids and the
+     * listeners drop whatever they hold for them. An id that did not exist
+     * has nothing to drop.
+     */
+    private int delete(Collection<String> empIds) {
+        int deleted = employeeRepository.deleteAllByEmployeeIdIn(empIds);
+
+        if (deleted > 0) {
+            empIds.forEach(empId -> eventPublisher.publishEvent(EmployeeChangedEvent.deleted(empId)));
+        }
+        return deleted;
+    }
+
+    private Employee saveAndPublish(EmployeeState before, Employee updatedEmployee) {
+        Employee savedEmployee = employeeRepository.save(updatedEmployee);
+        eventPublisher.publishEvent(EmployeeChangedEvent.updated(before, savedEmployee));
 
-        employeeRepository.delete(employee);
+        return savedEmployee;
     }
 }
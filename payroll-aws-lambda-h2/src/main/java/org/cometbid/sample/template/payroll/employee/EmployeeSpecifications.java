@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import jakarta.persistence.criteria.Path;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.cometbid.component.api.generic.exceptions.BadRequestException;
+import static org.cometbid.sample.template.payroll.employee.Employee.AMOUNT;
+import static org.cometbid.sample.template.payroll.employee.Employee.CURRENCY;
+import static org.cometbid.sample.template.payroll.employee.Employee.SALARY;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Turns {@link EmployeeSearchCriteria} into a single query. Every predicate
+ * is sargable: names use a prefix LIKE on case insensitive columns, salary
+ * ranges are bounded by currency and everything else is an equality or a
+ * range, so each criteria combination can be served from one of the indexes
+ * declared in schema.sql.
+ *
+ * @author samueladebowale
+ */
+public final class EmployeeSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private EmployeeSpecifications() {
+    }
+
+    /**
+     *
+     * @param criteria
+     * @return
+     */
+    public static Specification<Employee> matching(EmployeeSearchCriteria criteria) {
+        List<Specification<Employee>> specs = new ArrayList<>();
+
+        if (StringUtils.isNotBlank(criteria.getLastName())) {
+            specs.add(startsWith("lastName", criteria.getLastName()));
+        }
+        if (StringUtils.isNotBlank(criteria.getFirstName())) {
+            specs.add(startsWith("firstName", criteria.getFirstName()));
+        }
+        if (StringUtils.isNotBlank(criteria.getEmail())) {
+            specs.add((root, query, cb) -> cb.equal(root.get("email"), criteria.getEmail().trim()));
+        }
+        if (StringUtils.isNotBlank(criteria.getEmployeeType())) {
+            EmployeeType type = EmployeeType.fromString(criteria.getEmployeeType().trim());
+            if (type == null) {
+                throw new BadRequestException("search.employeeType.invalid", new Object[]{criteria.getEmployeeType()});
+            }
+            specs.add((root, query, cb) -> cb.equal(root.get("empType"), type));
+        }
+        if (StringUtils.isNotBlank(criteria.getCurrency())) {
+            String currency = criteria.getCurrency().trim().toUpperCase();
+            specs.add((root, query, cb) -> cb.equal(root.get(SALARY).get(CURRENCY), currency));
+        }
+        if (criteria.getMinSalary() != null || criteria.getMaxSalary() != null) {
+            if (StringUtils.isBlank(criteria.getCurrency())) {
+                throw new BadRequestException("search.salary.currencyRequired", new Object[]{});
+            }
+            if (criteria.getMinSalary() != null && criteria.getMaxSalary() != null
+                    && criteria.getMinSalary().compareTo(criteria.getMaxSalary()) > 0) {
+                throw new BadRequestException("search.salary.range",
+                        new Object[]{criteria.getMinSalary(), criteria.getMaxSalary()});
+            }
+            specs.add(salaryBetween(criteria.getMinSalary(), criteria.getMaxSalary()));
+        }
+        if (criteria.getCreatedFrom() != null && criteria.getCreatedTo() != null
+                && criteria.getCreatedFrom().isAfter(criteria.getCreatedTo())) {
+            throw new BadRequestException("search.created.range",
+                    new Object[]{criteria.getCreatedFrom(), criteria.getCreatedTo()});
+        }
+        if (criteria.getCreatedFrom() != null) {
+            specs.add((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("creationDate"), criteria.getCreatedFrom()));
+        }
+        if (criteria.getCreatedTo() != null) {
+            specs.add((root, query, cb) -> cb.lessThanOrEqualTo(root.get("creationDate"), criteria.getCreatedTo()));
+        }
+
+        return Specification.allOf(specs);
+    }
+
+    private static Specification<Employee> startsWith(String attribute, String prefix) {
+        String pattern = escapeLike(prefix.trim()) + "%";
+
+        return (root, query, cb) -> cb.like(root.get(attribute), pattern, LIKE_ESCAPE);
+    }
+
+    private static Specification<Employee> salaryBetween(BigDecimal min, BigDecimal max) {
+        return (root, query, cb) -> {
+            Path<BigDecimal> amount = root.get(SALARY).get(AMOUNT);
+
+            if (min != null && max != null) {
+                return cb.between(amount, min, max);
+            }
+            return min != null ? cb.greaterThanOrEqualTo(amount, min) : cb.lessThanOrEqualTo(amount, max);
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
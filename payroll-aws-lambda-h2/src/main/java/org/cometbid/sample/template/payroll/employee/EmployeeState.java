@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.time.OffsetDateTime;
+import javax.money.MonetaryAmount;
+
+/**
+ * Immutable copy of the persistent state of an employee, taken at the time a
+ * change is published so that listeners are not affected by later changes
+ * to the managed entity.
+ *
+ * @author samueladebowale
+ * @param employeeId
+ * @param firstName
+ * @param middleName
+ * @param lastName
+ * @param email
+ * @param empType
+ * @param salary
+ * @param creationDate
+ * @param version
+ */
+public record EmployeeState(String employeeId, String firstName, String middleName, String lastName,
+        String email, EmployeeType empType, MonetaryAmount salary, OffsetDateTime creationDate, long version) {
+
+    /**
+     *
+     * @param employee
+     * @return
+     */
+    public static EmployeeState of(Employee employee) {
+        return new EmployeeState(employee.getEmployeeId(), employee.getFirstName(), employee.getMiddleName(),
+                employee.getLastName(), employee.getEmail(), employee.getEmpType(), employee.getSalary(),
+                employee.getCreationDate(), employee.getVersion());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.cometbid.component.api.generic.exceptions.BadRequestException;
+
+/**
+ * Entity tags of employees, the tag is the quoted {@code version} column.
+ * Pages of employees are tagged with a hash of the ids and versions on the
+ * page and the total, so that they can be compared without loading the
+ * employees.
+ *
+ * @author samueladebowale
+ */
+public final class EmployeeVersionTag {
+
+    /**
+     * Expected version meaning "whatever version is current".
+     */
+    public static final long ANY_VERSION = -1;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private EmployeeVersionTag() {
+    }
+
+    /**
+     *
+     * @param version
+     * @return
+     */
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     *
+     * @param rows ids and versions of the employees on the page, in page
+     * order
+     * @param total total number of employees, negative when not counted
+     * @return
+     */
+    public static String ofPage(List<? extends EmployeeVersionView> rows, long total) {
+        long hash = FNV_OFFSET_BASIS;
+
+        for (EmployeeVersionView row : rows) {
+            String employeeId = row.getEmployeeId();
+            for (int i = 0; i < employeeId.length(); i++) {
+                hash = (hash ^ employeeId.charAt(i)) * FNV_PRIME;
+            }
+            hash = mix(hash, row.getVersion());
+        }
+        hash = mix(hash, total);
+
+        return "\"p" + Long.toHexString(hash) + "\"";
+    }
+
+    private static long mix(long hash, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Reads the version expected by an If-Match header.
+     *
+     * @param ifMatch header value, may be null
+     * @return the expected version or {@link #ANY_VERSION} when the header is
+     * absent or {@code *}
+     */
+    public static long parseIfMatch(String ifMatch) {
+        if (StringUtils.isBlank(ifMatch) || "*".equals(ifMatch.trim())) {
+            return ANY_VERSION;
+        }
+
+        String tag = StringUtils.removeStart(ifMatch.trim(), "W/");
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                long version = Long.parseLong(tag.substring(1, tag.length() - 1));
+                if (version >= 0) {
+                    return version;
+                }
+            } catch (NumberFormatException ex) {
+                // reported below
+            }
+        }
+        throw new BadRequestException("etag.invalid", new Object[]{ifMatch});
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Quantile sketch of non negative amounts with a relative accuracy bound,
+ * after DDSketch: amounts are counted in buckets whose bounds grow
+ * geometrically by {@code gamma = (1 + a) / (1 - a)}, so any quantile is
+ * answered within a relative error of {@code a} of the exact value.
+ * <p>
+ * Unlike rank based sketches a bucket is just a count, so amounts can be
+ * removed again and two sketches of the same accuracy merge exactly by
+ * adding their counts. Salaries from one cent to ten billion need less
+ * than 1,400 buckets at 1% accuracy, in practice a few hundred.
+ * <p>
+ * Instances are thread safe.
+ *
+ * @author samueladebowale
+ */
+public final class SalarySketch {
+
+    /**
+     * Upper bound of the bucket index range, the accuracy has to be coarse
+     * enough for every positive long amount to fall below it.
+     */
+    public static final int MAX_BUCKETS = 1 << 16;
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int INITIAL_BUCKETS = 64;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final int maxIndex;
+
+    private long zeroCount;
+    private long count;
+    // counts[i] is the count of bucket offset + i
+    private long[] counts = new long[0];
+    private int offset;
+
+    /**
+     *
+     * @param relativeAccuracy relative error bound of the quantiles, between
+     * 0 and 1 exclusive and coarse enough to need at most
+     * {@link #MAX_BUCKETS} buckets (about 0.04%)
+     */
+    public SalarySketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+
+        double lastIndex = Math.ceil(Math.log(Long.MAX_VALUE) / logGamma);
+        if (!(lastIndex < MAX_BUCKETS)) {
+            throw new IllegalArgumentException("Relative accuracy " + relativeAccuracy + " needs more than "
+                    + MAX_BUCKETS + " buckets");
+        }
+        this.maxIndex = (int) lastIndex;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     *
+     * @param amount amount in minor units, negative amounts count as zero
+     */
+    public synchronized void add(long amount) {
+        if (amount <= 0) {
+            zeroCount++;
+        } else {
+            int index = index(amount);
+            ensureCapacity(index);
+            counts[index - offset]++;
+        }
+        count++;
+    }
+
+    /**
+     * Removes an amount added before.
+     *
+     * @param amount amount in minor units
+     * @return false if no amount of that bucket was left to remove
+     */
+    public synchronized boolean remove(long amount) {
+        if (amount <= 0) {
+            if (zeroCount == 0) {
+                return false;
+            }
+            zeroCount--;
+        } else {
+            int i = index(amount) - offset;
+            if (i < 0 || i >= counts.length || counts[i] == 0) {
+                return false;
+            }
+            counts[i]--;
+        }
+        count--;
+        return true;
+    }
+
+    /**
+     * Adds the counts of another sketch of the same accuracy.
+     *
+     * @param other
+     * @throws IllegalArgumentException if the accuracies differ or the total
+     * count would overflow
+     */
+    public void merge(SalarySketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Sketches of accuracy " + relativeAccuracy + " and "
+                    + other.relativeAccuracy + " cannot be merged");
+        }
+
+        long[] otherCounts;
+        int otherOffset;
+        long otherZeroCount;
+        long otherCount;
+        synchronized (other) {
+            otherCounts = other.counts.clone();
+            otherOffset = other.offset;
+            otherZeroCount = other.zeroCount;
+            otherCount = other.count;
+        }
+
+        synchronized (this) {
+            // no bucket can overflow when the total does not
+            long mergedCount = addCounts(count, otherCount);
+
+            for (int i = 0; i < otherCounts.length; i++) {
+                if (otherCounts[i] != 0) {
+                    ensureCapacity(otherOffset + i);
+                    counts[otherOffset + i - offset] += otherCounts[i];
+                }
+            }
+            zeroCount += otherZeroCount;
+            count = mergedCount;
+        }
+    }
+
+    /**
+     *
+     * @param quantile between 0 and 1
+     * @return the quantile in minor units, within the relative accuracy of
+     * the exact value, or -1 when the sketch is empty
+     */
+    public synchronized long quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        }
+        if (count == 0) {
+            return -1;
+        }
+
+        long rank = (long) (quantile * (count - 1));
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return Math.round(2 * Math.pow(gamma, offset + i) / (gamma + 1));
+            }
+        }
+        // only reached when removals did not match additions
+        return Math.round(2 * Math.pow(gamma, offset + counts.length - 1) / (gamma + 1));
+    }
+
+    /**
+     *
+     * @return approximate heap size of the sketch
+     */
+    public synchronized long memoryBytes() {
+        // object header and fields, array header and slots
+        return 64 + 16 + 8L * counts.length;
+    }
+
+    /**
+     *
+     * @return compact binary form, see {@link #deserialize(byte[])}
+     */
+    public synchronized byte[] serialize() {
+        int first = 0;
+        int last = counts.length;
+        while (first < last && counts[first] == 0) {
+            first++;
+        }
+        while (last > first && counts[last - 1] == 0) {
+            last--;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 8 * (last - first));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeDouble(relativeAccuracy);
+            out.writeLong(zeroCount);
+            out.writeInt(first < last ? offset + first : 0);
+            out.writeInt(last - first);
+            for (int i = first; i < last; i++) {
+                out.writeLong(counts[i]);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a sketch from untrusted bytes: the buckets have to lie within the
+     * index range of the accuracy and no count may be negative, so a
+     * deserialized sketch never grows a merge target beyond
+     * {@link #MAX_BUCKETS} buckets.
+     *
+     * @param serialized
+     * @return
+     * @throws IllegalArgumentException if the bytes are not a valid serialized
+     * sketch
+     */
+    public static SalarySketch deserialize(byte[] serialized) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown sketch format");
+            }
+
+            SalarySketch sketch = new SalarySketch(in.readDouble());
+            long zeroCount = in.readLong();
+            int offset = in.readInt();
+            int length = in.readInt();
+
+            if (zeroCount < 0) {
+                throw new IllegalArgumentException("Negative zero count " + zeroCount);
+            }
+            if (length < 0 || length > (serialized.length - 25) / 8) {
+                throw new IllegalArgumentException("Bucket count " + length + " does not match the size");
+            }
+            if (length > 0 && (offset < 0 || offset > sketch.maxIndex - (length - 1))) {
+                throw new IllegalArgumentException("Buckets " + offset + " + " + length
+                        + " outside the index range 0.." + sketch.maxIndex);
+            }
+
+            long[] counts = new long[length];
+            long count = zeroCount;
+            for (int i = 0; i < length; i++) {
+                counts[i] = in.readLong();
+                if (counts[i] < 0) {
+                    throw new IllegalArgumentException("Negative count in bucket " + (offset + i));
+                }
+                count = addCounts(count, counts[i]);
+            }
+
+            sketch.zeroCount = zeroCount;
+            sketch.count = count;
+            sketch.counts = counts;
+            sketch.offset = offset;
+            return sketch;
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Corrupt sketch", ex);
+        }
+    }
+
+    private static long addCounts(long count, long other) {
+        try {
+            return Math.addExact(count, other);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Sketch count overflows", ex);
+        }
+    }
+
+    private int index(long amount) {
+        // at most maxIndex, see the constructor
+        return (int) Math.ceil(Math.log(amount) / logGamma);
+    }
+
+    private void ensureCapacity(int index) {
+        if (counts.length == 0) {
+            counts = new long[INITIAL_BUCKETS];
+            offset = index - INITIAL_BUCKETS / 2;
+            return;
+        }
+        if (index >= offset && index < offset + counts.length) {
+            return;
+        }
+
+        int newOffset = Math.min(offset, index);
+        int newEnd = Math.max(offset + counts.length, index + 1);
+        int newLength = Math.max(newEnd - newOffset, counts.length * 2);
+        // grow towards the side the new index is on
+        if (index < offset) {
+            newOffset = newEnd - newLength;
+        }
+
+        long[] grown = new long[newLength];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SalarySketch{relativeAccuracy=" + relativeAccuracy + ", count=" + count
+                + ", buckets=" + Arrays.stream(counts).filter(c -> c != 0).count() + "}";
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.employee;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free Snowflake style id generator: 41 bits of milliseconds since
+ * {@link #EPOCH}, 10 bits of worker id and 12 bits of sequence.
+ * <p>
+ * Timestamp and sequence are kept in a single atomic long that only ever
+ * grows, so ids of one generator are strictly increasing even when the
+ * clock goes backwards or more than 4096 ids are taken within one
+ * millisecond (the generator then runs ahead of the clock).
+ *
+ * @author samueladebowale
+ */
+public final class SnowflakeIdGenerator {
+
+    /**
+     * 2024-01-01T00:00:00Z
+     */
+    public static final long EPOCH = 1_704_067_200_000L;
+
+    static final int WORKER_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final LongSupplier clock;
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last id
+    private final AtomicLong lastState = new AtomicLong();
+
+    private volatile long workerId;
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long workerId, LongSupplier clock) {
+        this.clock = clock;
+        reseed(workerId);
+    }
+
+    /**
+     *
+     * @return
+     */
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long now = clock.getAsLong() - EPOCH;
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+
+            if (lastState.compareAndSet(last, next)) {
+                return (next >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS)
+                        | workerId << SEQUENCE_BITS
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Switches to another worker id, e.g. after a restore from a snapshot
+     * shared by several instances.
+     *
+     * @param workerId
+     */
+    public void reseed(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + MAX_WORKER_ID);
+        }
+        this.workerId = workerId;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+}
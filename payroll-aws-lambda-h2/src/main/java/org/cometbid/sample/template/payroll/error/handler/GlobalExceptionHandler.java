@@ -27,6 +27,7 @@ import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
@@ -54,6 +55,7 @@ import org.cometbid.component.api.response.model.ApiError;
 import org.cometbid.component.api.response.model.AppResponse;
 import static org.cometbid.component.api.util.ErrorCode.*;
 import org.cometbid.sample.template.payroll.config.ConfigurationFactory;
+import org.cometbid.sample.template.payroll.run.PayrollRunActiveException;
 import static org.cometbid.sample.template.payroll.config.LocalizationFactory.getContextLocale;
 import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -158,6 +160,38 @@ public class GlobalExceptionHandler {
         return createHttpErrorInfo(CONFLICT, exception.getErrorCode(), request, exception.getErrorMessage(), exception);
     }
 
+    /**
+     *
+     * @param exception
+     * @param request
+     * @return
+     */
+    @ResponseStatus(CONFLICT)
+    @ExceptionHandler({PayrollRunActiveException.class})
+    public @ResponseBody
+    AppResponse handlePayrollRunActiveException(PayrollRunActiveException exception, HttpServletRequest request) {
+
+        String message = getErrorMessage("payroll.run.active");
+
+        return createHttpErrorInfo(CONFLICT, DEFAULT_ERROR_CODE, request, message, exception);
+    }
+
+    /**
+     *
+     * @param exception
+     * @param request
+     * @return
+     */
+    @ResponseStatus(PRECONDITION_FAILED)
+    @ExceptionHandler({OptimisticLockingFailureException.class})
+    public @ResponseBody
+    AppResponse handleVersionConflictException(OptimisticLockingFailureException exception, HttpServletRequest request) {
+
+        String message = getErrorMessage("employee.version.conflict");
+
+        return createHttpErrorInfo(PRECONDITION_FAILED, DEFAULT_ERROR_CODE, request, message, exception);
+    }
+
     /**
      *
      * @param ex
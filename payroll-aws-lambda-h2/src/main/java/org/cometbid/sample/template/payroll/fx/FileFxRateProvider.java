@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.fx;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the exchange rates from a local properties file, the base currency
+ * under {@code base} and the rate of every other currency under its code.
+ * The file is read again on every refresh of the rate table.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "api.fx.provider", havingValue = "file", matchIfMissing = true)
+public class FileFxRateProvider implements FxRateProvider {
+
+    private static final String BASE_KEY = "base";
+
+    private final Resource file;
+
+    // read together with the rates
+    private volatile String baseCurrency;
+
+    public FileFxRateProvider(@Value("${api.fx.file:classpath:fx-rates.properties}") Resource file) {
+        this.file = file;
+    }
+
+    @Override
+    public String getBaseCurrency() {
+        if (baseCurrency == null) {
+            fetchRates();
+        }
+        return baseCurrency;
+    }
+
+    @Override
+    public Map<String, BigDecimal> fetchRates() {
+        Properties properties = new Properties();
+        try (InputStream in = file.getInputStream()) {
+            properties.load(in);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Exchange rates cannot be read from " + file, ex);
+        }
+
+        String base = properties.getProperty(BASE_KEY);
+        if (base == null) {
+            throw new IllegalStateException("Exchange rates in " + file + " have no " + BASE_KEY + " currency");
+        }
+
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String code : properties.stringPropertyNames()) {
+            if (!BASE_KEY.equals(code)) {
+                rates.put(code.trim().toUpperCase(), new BigDecimal(properties.getProperty(code).trim()));
+            }
+        }
+
+        baseCurrency = base.trim().toUpperCase();
+        log.debug("{} exchange rates read from {}", rates.size(), file);
+        return rates;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.fx;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exchange rates held in memory, standing in for a rate feed in tests and
+ * local runs. Rates set here are picked up by the next refresh of the rate
+ * table.
+ *
+ * @author samueladebowale
+ */
+@Component
+@ConditionalOnProperty(name = "api.fx.provider", havingValue = "in-memory")
+public class InMemoryFxRateProvider implements FxRateProvider {
+
+    private final String baseCurrency;
+    private final Map<String, BigDecimal> rates = new ConcurrentHashMap<>();
+
+    public InMemoryFxRateProvider(@Value("${api.default.currency:USD}") String baseCurrency) {
+        this.baseCurrency = baseCurrency.toUpperCase();
+        this.rates.put(this.baseCurrency, BigDecimal.ONE);
+    }
+
+    /**
+     *
+     * @param currency ISO 4217 code
+     * @param rate units of the currency per unit of the base currency
+     */
+    public void setRate(String currency, BigDecimal rate) {
+        rates.put(currency.toUpperCase(), rate);
+    }
+
+    @Override
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    @Override
+    public Map<String, BigDecimal> fetchRates() {
+        return Map.copyOf(rates);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.money;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import javax.money.MonetaryAmount;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.javamoney.moneta.Money;
+
+/**
+ * Amount of money as a count of minor units of its currency, e.g. cents,
+ * and the ordinal of the currency. Used where many amounts are summed,
+ * compared or written, without the {@link BigDecimal} and monetary context
+ * a {@link MonetaryAmount} allocates per operation, and converted to a
+ * {@link MonetaryAmount} only where an API expects one.
+ *
+ * @author samueladebowale
+ */
+@JsonSerialize(using = MinorUnitMoneySerializer.class)
+public record MinorUnitMoney(long minorUnits, short currencyOrdinal) implements Comparable<MinorUnitMoney> {
+
+    private static final CurrencyFactory.Currency[] CURRENCIES = CurrencyFactory.Currency.values();
+
+    // sign, 19 digits, point and the zeros of an amount below one
+    static final int MAX_AMOUNT_CHARS = 24;
+
+    public MinorUnitMoney {
+        if (currencyOrdinal < 0 || currencyOrdinal >= CURRENCIES.length) {
+            throw new IllegalArgumentException("Unknown currency ordinal " + currencyOrdinal);
+        }
+    }
+
+    /**
+     *
+     * @param minorUnits
+     * @param currency
+     * @return
+     */
+    public static MinorUnitMoney of(long minorUnits, CurrencyFactory.Currency currency) {
+        return new MinorUnitMoney(minorUnits, (short) currency.ordinal());
+    }
+
+    /**
+     *
+     * @param amount amount in major units, rounded half even to the minor
+     * unit
+     * @param currency
+     * @return
+     */
+    public static MinorUnitMoney of(BigDecimal amount, CurrencyFactory.Currency currency) {
+        return of(toMinorUnits(amount, currency), currency);
+    }
+
+    /**
+     *
+     * @param amount
+     * @return
+     * @throws IllegalArgumentException if the currency is not one of
+     * {@link CurrencyFactory.Currency}
+     */
+    public static MinorUnitMoney of(MonetaryAmount amount) {
+        CurrencyFactory.Currency currency = CurrencyFactory.Currency.fromString(amount.getCurrency().getCurrencyCode());
+        if (currency == null) {
+            throw new IllegalArgumentException("Unknown currency " + amount.getCurrency());
+        }
+        return of(amount.getNumber().numberValue(BigDecimal.class), currency);
+    }
+
+    /**
+     *
+     * @param amount amount in major units, null counts as zero
+     * @param currency
+     * @return the amount in minor units, rounded half even
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public static long toMinorUnits(BigDecimal amount, CurrencyFactory.Currency currency) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.movePointRight(currency.getFractionDigits()).setScale(0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+
+    /**
+     * Divides rounding half even, without going through {@link BigDecimal}.
+     *
+     * @param dividend
+     * @param divisor positive
+     * @return
+     */
+    public static long divideHalfEven(long dividend, long divisor) {
+        long quotient = Math.floorDiv(dividend, divisor);
+        long twiceRemainder = 2 * Math.floorMod(dividend, divisor);
+
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) == 1)) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    public CurrencyFactory.Currency currency() {
+        return CURRENCIES[currencyOrdinal];
+    }
+
+    /**
+     *
+     * @param other amount of the same currency
+     * @return
+     */
+    public MinorUnitMoney plus(MinorUnitMoney other) {
+        checkSameCurrency(other);
+        return new MinorUnitMoney(Math.addExact(minorUnits, other.minorUnits), currencyOrdinal);
+    }
+
+    /**
+     *
+     * @param divisor positive
+     * @return the amount divided, rounded half even to the minor unit
+     */
+    public MinorUnitMoney dividedBy(long divisor) {
+        return new MinorUnitMoney(divideHalfEven(minorUnits, divisor), currencyOrdinal);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency().getFractionDigits());
+    }
+
+    public MonetaryAmount toMonetaryAmount() {
+        return Money.of(toBigDecimal(), currency().toString());
+    }
+
+    /**
+     * Writes the amount in major units, e.g. {@code -12.05}, from the end of
+     * the buffer.
+     *
+     * @param buffer at least {@link #MAX_AMOUNT_CHARS} long
+     * @return index of the first character written
+     */
+    int formatAmount(char[] buffer) {
+        int fractionDigits = currency().getFractionDigits();
+        int pos = buffer.length;
+        // negative remainders, so that Long.MIN_VALUE needs no special case
+        long rest = minorUnits > 0 ? -minorUnits : minorUnits;
+        int digits = 0;
+
+        do {
+            if (digits == fractionDigits && digits > 0) {
+                buffer[--pos] = '.';
+            }
+            buffer[--pos] = (char) ('0' - rest % 10);
+            rest /= 10;
+            digits++;
+        } while (rest != 0 || digits <= fractionDigits);
+
+        if (minorUnits < 0) {
+            buffer[--pos] = '-';
+        }
+        return pos;
+    }
+
+    @Override
+    public int compareTo(MinorUnitMoney other) {
+        checkSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    private void checkSameCurrency(MinorUnitMoney other) {
+        if (other.currencyOrdinal != currencyOrdinal) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency() + " and " + other.currency());
+        }
+    }
+
+    @Override
+    public String toString() {
+        char[] buffer = new char[MAX_AMOUNT_CHARS];
+        int start = formatAmount(buffer);
+        return currency() + " " + new String(buffer, start, buffer.length - start);
+    }
+}
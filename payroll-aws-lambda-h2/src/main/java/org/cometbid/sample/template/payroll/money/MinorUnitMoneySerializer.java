@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import org.cometbid.sample.template.payroll.employee.Employee;
+
+/**
+ * Writes a {@link MinorUnitMoney} in the shape of the monetary amounts of
+ * the API, {@code {"amount":"1234.50","currency":"USD"}}, formatting the
+ * amount straight from the minor units.
+ *
+ * @author samueladebowale
+ */
+public class MinorUnitMoneySerializer extends StdSerializer<MinorUnitMoney> {
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(
+            () -> new char[MinorUnitMoney.MAX_AMOUNT_CHARS]);
+
+    public MinorUnitMoneySerializer() {
+        super(MinorUnitMoney.class);
+    }
+
+    @Override
+    public void serialize(MinorUnitMoney value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        char[] buffer = BUFFER.get();
+        int start = value.formatAmount(buffer);
+
+        gen.writeStartObject();
+        gen.writeFieldName(Employee.AMOUNT);
+        gen.writeString(buffer, start, buffer.length - start);
+        gen.writeStringField(Employee.CURRENCY, value.currency().toString());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.run;
+
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.cometbid.sample.template.payroll.money.MinorUnitMoney;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Splits the annual salary evenly over the pay periods of a year and
+ * withholds a flat rate per employee type, whatever the currency.
+ *
+ * @author samueladebowale
+ */
+@Component
+public class FlatRatePayCalculator implements PayCalculator {
+
+    private static final long BASIS_POINTS = 10_000;
+
+    private final long payPeriodsPerYear;
+    // withholding rate in basis points, indexed by EmployeeType ordinal
+    private final long[] withholdingRates;
+
+    public FlatRatePayCalculator(@Value("${api.payroll.pay-periods-per-year:12}") int payPeriodsPerYear,
+            @Value("${api.payroll.withholding-bps.full-time:2000}") int fullTimeRate,
+            @Value("${api.payroll.withholding-bps.part-time:1500}") int partTimeRate,
+            @Value("${api.payroll.withholding-bps.contract:0}") int contractRate) {
+        this.payPeriodsPerYear = payPeriodsPerYear;
+
+        this.withholdingRates = new long[EmployeeType.values().length];
+        this.withholdingRates[EmployeeType.FULL_TIME.ordinal()] = fullTimeRate;
+        this.withholdingRates[EmployeeType.PART_TIME.ordinal()] = partTimeRate;
+        this.withholdingRates[EmployeeType.CONTRACT.ordinal()] = contractRate;
+    }
+
+    @Override
+    public long grossPay(EmployeeType type, CurrencyFactory.Currency currency, long annualSalary) {
+        return MinorUnitMoney.divideHalfEven(annualSalary, payPeriodsPerYear);
+    }
+
+    @Override
+    public long deductions(EmployeeType type, CurrencyFactory.Currency currency, long grossPay) {
+        return MinorUnitMoney.divideHalfEven(Math.multiplyExact(grossPay, withholdingRates[type.ordinal()]), BASIS_POINTS);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.run;
+
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+
+/**
+ * Pay of one employee for one pay period. All amounts are in minor units of
+ * the salary currency (cents for USD), implementations run once per
+ * employee and run and must neither allocate nor keep state.
+ *
+ * @author samueladebowale
+ */
+public interface PayCalculator {
+
+    /**
+     *
+     * @param type
+     * @param currency
+     * @param annualSalary annual salary in minor units
+     * @return gross pay of the period in minor units
+     */
+    long grossPay(EmployeeType type, CurrencyFactory.Currency currency, long annualSalary);
+
+    /**
+     *
+     * @param type
+     * @param currency
+     * @param grossPay gross pay of the period in minor units
+     * @return taxes and deductions withheld from the gross pay, in minor units
+     */
+    long deductions(EmployeeType type, CurrencyFactory.Currency currency, long grossPay);
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.run;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Tax and deduction rules as written in {@code payroll-rules.yml}, amounts
+ * in major units of the currency and rates in basis points. Compiled into
+ * {@link PayrollRules} at start up.
+ *
+ * @author samueladebowale
+ */
+@Data
+@ConfigurationProperties(prefix = "payroll")
+public class PayrollRuleProperties {
+
+    private List<Rule> rules = new ArrayList<>();
+
+    /**
+     * Rules of one currency and employee type.
+     */
+    @Data
+    public static class Rule {
+
+        private String currency;
+        private String employeeType;
+        // marginal rates, each applies from its lower bound up to the next one
+        private List<TaxBracket> taxBrackets = new ArrayList<>();
+        private List<Deduction> deductions = new ArrayList<>();
+    }
+
+    @Data
+    public static class TaxBracket {
+
+        private BigDecimal from = BigDecimal.ZERO;
+        private int rateBps;
+    }
+
+    /**
+     * A share of the gross pay, optionally capped, plus a fixed amount.
+     */
+    @Data
+    public static class Deduction {
+
+        private String name;
+        private int rateBps;
+        private BigDecimal cap;
+        private BigDecimal fixed;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.run;
+
+import java.util.Arrays;
+import java.util.List;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.cometbid.sample.template.payroll.money.MinorUnitMoney;
+
+/**
+ * Tax and deduction rules compiled into flat tables indexed by currency and
+ * employee type. Every amount is converted to minor units once, bracket
+ * lower bounds are sorted for a binary search and the tax due below each
+ * bound is precomputed, so evaluating one gross pay is a lookup, a binary
+ * search and a few multiplications, without allocation.
+ * <p>
+ * Intermediate amounts are kept in minor units times basis points and
+ * rounded half even once, an overflow raises an {@link ArithmeticException}.
+ *
+ * @author samueladebowale
+ */
+public final class PayrollRules {
+
+    private static final long BASIS_POINTS = 10_000;
+    private static final int TYPES = EmployeeType.values().length;
+
+    // indexed by currency ordinal * TYPES + type ordinal, null without rules
+    private final Table[] tables;
+
+    private PayrollRules(Table[] tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Validates and compiles rule definitions.
+     *
+     * @param rules
+     * @return
+     * @throws IllegalStateException if a rule is invalid or defined twice
+     */
+    public static PayrollRules compile(List<PayrollRuleProperties.Rule> rules) {
+        Table[] tables = new Table[CurrencyFactory.Currency.values().length * TYPES];
+
+        for (PayrollRuleProperties.Rule rule : rules) {
+            CurrencyFactory.Currency currency = CurrencyFactory.Currency.fromString(rule.getCurrency());
+            EmployeeType type = EmployeeType.fromString(rule.getEmployeeType());
+
+            if (currency == null || type == null) {
+                throw new IllegalStateException("Unknown currency or employee type in payroll rule "
+                        + rule.getCurrency() + "/" + rule.getEmployeeType());
+            }
+
+            int index = currency.ordinal() * TYPES + type.ordinal();
+            if (tables[index] != null) {
+                throw new IllegalStateException("Payroll rule defined twice for " + currency + "/" + type);
+            }
+            tables[index] = Table.compile(rule, currency);
+        }
+        return new PayrollRules(tables);
+    }
+
+    /**
+     *
+     * @param type
+     * @param currency
+     * @return whether rules are defined for the currency and employee type
+     */
+    public boolean covers(EmployeeType type, CurrencyFactory.Currency currency) {
+        return tables[currency.ordinal() * TYPES + type.ordinal()] != null;
+    }
+
+    /**
+     *
+     * @param type
+     * @param currency
+     * @param grossPay gross pay in minor units
+     * @return tax due on the gross pay, in minor units
+     */
+    public long tax(EmployeeType type, CurrencyFactory.Currency currency, long grossPay) {
+        Table table = tables[currency.ordinal() * TYPES + type.ordinal()];
+        return table == null ? 0 : table.tax(grossPay);
+    }
+
+    /**
+     *
+     * @param type
+     * @param currency
+     * @param grossPay gross pay in minor units
+     * @return tax and deductions due on the gross pay, in minor units
+     */
+    public long deductions(EmployeeType type, CurrencyFactory.Currency currency, long grossPay) {
+        Table table = tables[currency.ordinal() * TYPES + type.ordinal()];
+        return table == null ? 0 : Math.addExact(table.tax(grossPay), table.deductions(grossPay));
+    }
+
+    private static final class Table {
+
+        private final long[] lowerBounds;
+        private final long[] rates;
+        // tax due at each lower bound, in minor units times basis points
+        private final long[] taxBelow;
+
+        private final long[] deductionRates;
+        // Long.MAX_VALUE when the deduction is not capped
+        private final long[] deductionCaps;
+        private final long fixedDeductions;
+
+        private Table(long[] lowerBounds, long[] rates, long[] taxBelow, long[] deductionRates,
+                long[] deductionCaps, long fixedDeductions) {
+            this.lowerBounds = lowerBounds;
+            this.rates = rates;
+            this.taxBelow = taxBelow;
+            this.deductionRates = deductionRates;
+            this.deductionCaps = deductionCaps;
+            this.fixedDeductions = fixedDeductions;
+        }
+
+        static Table compile(PayrollRuleProperties.Rule rule, CurrencyFactory.Currency currency) {
+            List<PayrollRuleProperties.TaxBracket> brackets = rule.getTaxBrackets();
+            int n = brackets.size();
+
+            long[] lowerBounds = new long[n];
+            long[] rates = new long[n];
+            long[] taxBelow = new long[n];
+
+            for (int i = 0; i < n; i++) {
+                PayrollRuleProperties.TaxBracket bracket = brackets.get(i);
+
+                lowerBounds[i] = MinorUnitMoney.toMinorUnits(bracket.getFrom(), currency);
+                rates[i] = checkRate(bracket.getRateBps(), rule);
+
+                if (lowerBounds[i] < 0 || (i > 0 && lowerBounds[i] <= lowerBounds[i - 1])) {
+                    throw new IllegalStateException("Tax brackets of " + rule.getCurrency() + "/"
+                            + rule.getEmployeeType() + " must start at increasing, non negative amounts");
+                }
+                if (i > 0) {
+                    taxBelow[i] = Math.addExact(taxBelow[i - 1],
+                            Math.multiplyExact(lowerBounds[i] - lowerBounds[i - 1], rates[i - 1]));
+                }
+            }
+
+            List<PayrollRuleProperties.Deduction> deductions = rule.getDeductions();
+            long[] deductionRates = new long[deductions.size()];
+            long[] deductionCaps = new long[deductions.size()];
+            long fixedDeductions = 0;
+
+            for (int i = 0; i < deductions.size(); i++) {
+                PayrollRuleProperties.Deduction deduction = deductions.get(i);
+
+                deductionRates[i] = checkRate(deduction.getRateBps(), rule);
+                deductionCaps[i] = deduction.getCap() == null ? Long.MAX_VALUE
+                        : MinorUnitMoney.toMinorUnits(deduction.getCap(), currency);
+                if (deduction.getFixed() != null) {
+                    fixedDeductions = Math.addExact(fixedDeductions,
+                            MinorUnitMoney.toMinorUnits(deduction.getFixed(), currency));
+                }
+            }
+
+            return new Table(lowerBounds, rates, taxBelow, deductionRates, deductionCaps, fixedDeductions);
+        }
+
+        long tax(long grossPay) {
+            int k = Arrays.binarySearch(lowerBounds, grossPay);
+            if (k < 0) {
+                // insertion point minus one: the last bracket starting below the gross pay
+                k = -k - 2;
+            }
+            if (k < 0) {
+                return 0;
+            }
+
+            long scaled = Math.addExact(taxBelow[k], Math.multiplyExact(grossPay - lowerBounds[k], rates[k]));
+            return MinorUnitMoney.divideHalfEven(scaled, BASIS_POINTS);
+        }
+
+        long deductions(long grossPay) {
+            long total = fixedDeductions;
+
+            for (int i = 0; i < deductionRates.length; i++) {
+                long deduction = MinorUnitMoney.divideHalfEven(Math.multiplyExact(grossPay, deductionRates[i]), BASIS_POINTS);
+                total = Math.addExact(total, Math.min(deduction, deductionCaps[i]));
+            }
+            return total;
+        }
+
+        private static long checkRate(int rateBps, PayrollRuleProperties.Rule rule) {
+            if (rateBps < 0 || rateBps > BASIS_POINTS) {
+                throw new IllegalStateException("Rate " + rateBps + " of " + rule.getCurrency() + "/"
+                        + rule.getEmployeeType() + " is not between 0 and 10000 basis points");
+            }
+            return rateBps;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.run;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import lombok.extern.log4j.Log4j2;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.cometbid.sample.template.payroll.money.MinorUnitMoney;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Computes the pay of every employee. The table is read in id ordered
+ * partitions straight into primitive arrays, each partition is computed in
+ * parallel on a dedicated fork-join pool and its results inserted with one
+ * JDBC batch in its own transaction. Salaries are converted to minor units
+ * once when read, the calculation itself only works on longs.
+ * <p>
+ * Deductions are capped at the gross pay, so the net pay is never negative.
+ * Only one run at a time is allowed per instance. Results are kept per run
+ * in {@code payroll_result}, the run itself in {@code payroll_run}.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Component
+public class PayrollRunEngine {
+
+    private static final String SELECT_PARTITION = """
+            SELECT id, employee_id, employee_type, sal_amount, sal_currency
+            FROM employee WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY""";
+
+    private static final String INSERT_RESULT = """
+            INSERT INTO payroll_result (run_id, employee_pk, employee_id, employee_type, currency,
+                gross_minor, deductions_minor, net_minor)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    // employees computed by one fork-join task without further splitting
+    private static final int COMPUTE_THRESHOLD = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PayCalculator payCalculator;
+    private final int partitionSize;
+    private final ForkJoinPool pool;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PayrollRunEngine(DataSource dataSource, PlatformTransactionManager transactionManager,
+            PayCalculator payCalculator,
+            @Value("${api.payroll.partition-size:5000}") int partitionSize,
+            @Value("${api.payroll.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(Math.min(partitionSize, 1000));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.payCalculator = payCalculator;
+        this.partitionSize = partitionSize;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Pays every employee present when the run reaches it.
+     *
+     * @return
+     */
+    public PayrollRunReport run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new PayrollRunActiveException();
+        }
+
+        long runId = startRun();
+        try {
+            PayrollRunReport report = pay(runId);
+            finishRun(report);
+
+            log.info("Payroll run {} paid {} employees in {} ms, {} employees/s (read {} ms, compute {} ms, "
+                    + "write {} ms)", runId, report.employees(), report.elapsedMillis(), report.employeesPerSecond(),
+                    report.readMillis(), report.computeMillis(), report.writeMillis());
+            return report;
+        } catch (RuntimeException ex) {
+            jdbcTemplate.update("UPDATE payroll_run SET status = 'FAILED', finished_at = CURRENT_TIMESTAMP "
+                    + "WHERE id = ?", runId);
+            throw ex;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private PayrollRunReport pay(long runId) {
+        long start = System.nanoTime();
+        long readNanos = 0;
+        long computeNanos = 0;
+        long writeNanos = 0;
+
+        Partition partition = new Partition(partitionSize);
+        long employees = 0;
+        long failed = 0;
+        int partitions = 0;
+
+        while (true) {
+            long t0 = System.nanoTime();
+            read(partition);
+            long t1 = System.nanoTime();
+
+            if (partition.size == 0) {
+                readNanos += t1 - t0;
+                break;
+            }
+
+            pool.invoke(new ComputeTask(partition, 0, partition.size));
+            long t2 = System.nanoTime();
+
+            int written = write(runId, partition);
+            long t3 = System.nanoTime();
+
+            readNanos += t1 - t0;
+            computeNanos += t2 - t1;
+            writeNanos += t3 - t2;
+
+            employees += written;
+            failed += partition.size - written;
+            partitions++;
+
+            if (partition.size < partitionSize) {
+                break;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        long perSecond = elapsedNanos == 0 ? 0 : employees * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+
+        return new PayrollRunReport(runId, employees, failed, partitions, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                perSecond, TimeUnit.NANOSECONDS.toMillis(readNanos), TimeUnit.NANOSECONDS.toMillis(computeNanos),
+                TimeUnit.NANOSECONDS.toMillis(writeNanos));
+    }
+
+    private void read(Partition partition) {
+        long lastId = partition.lastId;
+        partition.size = 0;
+
+        jdbcTemplate.query(SELECT_PARTITION, (ResultSet rs) -> {
+            int i = partition.size++;
+
+            partition.ids[i] = rs.getLong(1);
+            partition.employeeIds[i] = rs.getString(2);
+            partition.types[i] = EmployeeType.fromString(rs.getString(3));
+            partition.currencies[i] = CurrencyFactory.Currency.fromString(rs.getString(5));
+            partition.paid[i] = false;
+
+            try {
+                partition.annualSalaries[i] = partition.currencies[i] == null ? 0
+                        : MinorUnitMoney.toMinorUnits(rs.getBigDecimal(4), partition.currencies[i]);
+            } catch (ArithmeticException ex) {
+                // not representable in minor units, the employee is skipped
+                partition.currencies[i] = null;
+            }
+        }, lastId, partitionSize);
+
+        if (partition.size > 0) {
+            partition.lastId = partition.ids[partition.size - 1];
+        }
+    }
+
+    private void compute(Partition partition, int from, int to) {
+        for (int i = from; i < to; i++) {
+            EmployeeType type = partition.types[i];
+            CurrencyFactory.Currency currency = partition.currencies[i];
+
+            if (type == null || currency == null) {
+                continue;
+            }
+
+            try {
+                long gross = payCalculator.grossPay(type, currency, partition.annualSalaries[i]);
+                // withholding more than the gross pay would make the net pay negative
+                long deductions = Math.min(payCalculator.deductions(type, currency, gross), gross);
+
+                partition.grossPay[i] = gross;
+                partition.deductions[i] = deductions;
+                partition.paid[i] = true;
+            } catch (ArithmeticException ex) {
+                log.warn("Pay of employee {} overflows", partition.employeeIds[i]);
+            }
+        }
+    }
+
+    private int write(long runId, Partition partition) {
+        int count = 0;
+        for (int i = 0; i < partition.size; i++) {
+            if (partition.paid[i]) {
+                partition.order[count++] = i;
+            }
+        }
+
+        int written = count;
+        if (written > 0) {
+            transactionTemplate.executeWithoutResult(status
+                    -> jdbcTemplate.batchUpdate(INSERT_RESULT, new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int j) throws SQLException {
+                            int i = partition.order[j];
+
+                            ps.setLong(1, runId);
+                            ps.setLong(2, partition.ids[i]);
+                            ps.setString(3, partition.employeeIds[i]);
+                            ps.setString(4, partition.types[i].getValue());
+                            ps.setString(5, partition.currencies[i].toString());
+                            ps.setLong(6, partition.grossPay[i]);
+                            ps.setLong(7, partition.deductions[i]);
+                            ps.setLong(8, partition.grossPay[i] - partition.deductions[i]);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return written;
+                        }
+                    }));
+        }
+        return written;
+    }
+
+    private long startRun() {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.update(connection -> connection.prepareStatement(
+                "INSERT INTO payroll_run (status, started_at) VALUES ('RUNNING', CURRENT_TIMESTAMP)",
+                new String[]{"id"}), keyHolder);
+
+        return Objects.requireNonNull(keyHolder.getKey()).longValue();
+    }
+
+    private void finishRun(PayrollRunReport report) {
+        jdbcTemplate.update("""
+                UPDATE payroll_run SET status = 'COMPLETED', finished_at = CURRENT_TIMESTAMP, employees = ?,
+                    failed = ?, read_ms = ?, compute_ms = ?, write_ms = ?
+                WHERE id = ?""", report.employees(), report.failed(), report.readMillis(), report.computeMillis(),
+                report.writeMillis(), report.runId());
+    }
+
+    /**
+     * One partition of employees as parallel arrays, allocated once per run
+     * and refilled for every partition.
+     */
+    private static final class Partition {
+
+        private final long[] ids;
+        private final String[] employeeIds;
+        private final EmployeeType[] types;
+        private final CurrencyFactory.Currency[] currencies;
+        private final long[] annualSalaries;
+        private final long[] grossPay;
+        private final long[] deductions;
+        private final boolean[] paid;
+        // indexes of the paid employees, in id order
+        private final int[] order;
+
+        private int size;
+        private long lastId = Long.MIN_VALUE;
+
+        private Partition(int capacity) {
+            this.ids = new long[capacity];
+            this.employeeIds = new String[capacity];
+            this.types = new EmployeeType[capacity];
+            this.currencies = new CurrencyFactory.Currency[capacity];
+            this.annualSalaries = new long[capacity];
+            this.grossPay = new long[capacity];
+            this.deductions = new long[capacity];
+            this.paid = new boolean[capacity];
+            this.order = new int[capacity];
+        }
+    }
+
+    private final class ComputeTask extends RecursiveAction {
+
+        private final Partition partition;
+        private final int from;
+        private final int to;
+
+        private ComputeTask(Partition partition, int from, int to) {
+            this.partition = partition;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= COMPUTE_THRESHOLD) {
+                PayrollRunEngine.this.compute(partition, from, to);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new ComputeTask(partition, from, mid), new ComputeTask(partition, mid, to));
+        }
+    }
+}
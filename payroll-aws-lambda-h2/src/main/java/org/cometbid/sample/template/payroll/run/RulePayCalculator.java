@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.run;
+
+import lombok.extern.log4j.Log4j2;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Withholds tax and deductions as defined in {@code payroll-rules.yml}.
+ * Currencies and employee types without rules fall back to the flat rate,
+ * the gross pay is always the one of {@link FlatRatePayCalculator}.
+ *
+ * @author samueladebowale
+ */
+@Log4j2
+@Primary
+@Component
+public class RulePayCalculator implements PayCalculator {
+
+    private final FlatRatePayCalculator flatRate;
+    private final PayrollRules rules;
+
+    public RulePayCalculator(FlatRatePayCalculator flatRate, PayrollRuleProperties ruleProperties) {
+        this.flatRate = flatRate;
+        this.rules = PayrollRules.compile(ruleProperties.getRules());
+
+        log.info("Compiled {} payroll rules", ruleProperties.getRules().size());
+    }
+
+    @Override
+    public long grossPay(EmployeeType type, CurrencyFactory.Currency currency, long annualSalary) {
+        return flatRate.grossPay(type, currency, annualSalary);
+    }
+
+    @Override
+    public long deductions(EmployeeType type, CurrencyFactory.Currency currency, long grossPay) {
+        return rules.covers(type, currency)
+                ? rules.deductions(type, currency, grossPay)
+                : flatRate.deductions(type, currency, grossPay);
+    }
+}
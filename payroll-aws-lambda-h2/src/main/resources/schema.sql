@@ -1,10 +1,15 @@
 DROP TABLE IF EXISTS employee;
+DROP TABLE IF EXISTS employee_code_block;
+DROP TABLE IF EXISTS payroll_result;
+DROP TABLE IF EXISTS payroll_run;
+DROP SEQUENCE IF EXISTS employee_worker_seq;
 
 CREATE TABLE employee (
-    id              BINARY VARYING(500) PRIMARY KEY,
-    employee_id     varchar(250)        NOT NULL,
-    first_name      varchar(100)        NOT NULL,
-    last_name       varchar(100)        NOT NULL,
+    id              BIGINT              PRIMARY KEY,
+    -- ids are stored in canonical upper case, lookups compare the plain column
+    employee_id     varchar(250)        NOT NULL CHECK (employee_id = UPPER(employee_id)),
+    first_name      varchar_ignorecase(100) NOT NULL,
+    last_name       varchar_ignorecase(100) NOT NULL,
     middle_name     varchar(100),
     email           varchar(250)        NOT NULL,
     employee_type   varchar(100)        NOT NULL default 'FULL-TIME',
@@ -18,4 +23,56 @@ CREATE UNIQUE INDEX UN_EMP_ID_IDX
 ON employee(employee_id);
 
 CREATE UNIQUE INDEX UN_EMP_EMAIL_IDX 
-ON employee(email);
\ No newline at end of file
+ON employee(email);
+
+-- Search indexes: names are case insensitive columns so prefix searches stay
+-- index range scans, salary ranges are always bounded by currency.
+CREATE INDEX EMP_LAST_NAME_IDX 
+ON employee(last_name, first_name);
+
+CREATE INDEX EMP_FIRST_NAME_IDX 
+ON employee(first_name);
+
+CREATE INDEX EMP_TYPE_SALARY_IDX 
+ON employee(employee_type, sal_currency, sal_amount);
+
+CREATE INDEX EMP_CURRENCY_SALARY_IDX 
+ON employee(sal_currency, sal_amount);
+
+CREATE INDEX EMP_CREATION_DATE_IDX 
+ON employee(creation_date);
+
+-- Next free number per employee code prefix, instances reserve numbers in blocks.
+CREATE TABLE employee_code_block (
+    prefix          varchar(16)         PRIMARY KEY,
+    next_value      BIGINT              NOT NULL
+);
+
+-- Every instance leases its id generator worker id from this sequence, modulo 1024.
+CREATE SEQUENCE employee_worker_seq START WITH 0 MINVALUE 0;
+
+-- One row per payroll run, results are written per partition as the run goes.
+CREATE TABLE payroll_run (
+    id              BIGINT              GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    status          varchar(20)         NOT NULL,
+    started_at      timestamp           NOT NULL,
+    finished_at     timestamp,
+    employees       BIGINT,
+    failed          BIGINT,
+    read_ms         BIGINT,
+    compute_ms      BIGINT,
+    write_ms        BIGINT
+);
+
+-- Pay of one employee in one run, amounts in minor units of the currency.
+CREATE TABLE payroll_result (
+    run_id          BIGINT              NOT NULL,
+    employee_pk     BIGINT              NOT NULL,
+    employee_id     varchar(250)        NOT NULL,
+    employee_type   varchar(100)        NOT NULL,
+    currency        varchar(3)          NOT NULL,
+    gross_minor     BIGINT              NOT NULL,
+    deductions_minor BIGINT             NOT NULL,
+    net_minor       BIGINT              NOT NULL,
+    PRIMARY KEY (run_id, employee_pk)
+);
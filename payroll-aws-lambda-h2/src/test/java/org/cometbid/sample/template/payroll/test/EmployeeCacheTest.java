@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.time.Duration;
+import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeCache;
+import org.cometbid.sample.template.payroll.employee.EmployeeChangedEvent;
+import org.cometbid.sample.template.payroll.employee.EmployeeState;
+import org.cometbid.sample.template.payroll.employee.EmployeeVersionTag;
+import org.cometbid.sample.template.payroll.it.EmployeeTestBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeCacheTest {
+
+    @Test
+    public void testCallersDoNotShareCachedEmployees() {
+        EmployeeCache cache = new EmployeeCache(100, Duration.ofMinutes(5));
+        Employee employee = EmployeeTestBuilder.employee().withFirstName("John").build();
+        employee.setEmployeeId("EMP-1");
+
+        cache.put(employee, cache.loadStamp());
+        employee.setFirstName("Changed by the loader");
+
+        Employee first = cache.get("emp-1").orElseThrow();
+        Assertions.assertEquals("John", first.getFirstName());
+        Assertions.assertEquals("EMP-1", first.getEmployeeId());
+        Assertions.assertEquals(employee.getSalary(), first.getSalary());
+
+        first.setFirstName("Changed by a reader");
+        Employee second = cache.get("EMP-1").orElseThrow();
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals("John", second.getFirstName());
+    }
+
+    @Test
+    public void testLoadOverlappingAnUnconditionalChangeIsNotCached() {
+        EmployeeCache cache = new EmployeeCache(100, Duration.ofMinutes(5));
+        Employee stale = EmployeeTestBuilder.employee().withFirstName("John").build();
+        stale.setEmployeeId("EMP-1");
+
+        // a reader starts loading, an update without If-Match commits before it caches the row it read
+        long loadStamp = cache.loadStamp();
+        cache.onEmployeeChanged(EmployeeChangedEvent.updated(new EmployeeState("EMP-1", "Jane", null, "Doe",
+                null, null, null, null, EmployeeVersionTag.ANY_VERSION)));
+        cache.put(stale, loadStamp);
+
+        Assertions.assertTrue(cache.get("EMP-1").isEmpty());
+
+        // a load that starts after the change is cached
+        Employee fresh = EmployeeTestBuilder.employee().withFirstName("Jane").build();
+        fresh.setEmployeeId("EMP-1");
+        cache.put(fresh, cache.loadStamp());
+
+        Assertions.assertEquals("Jane", cache.get("EMP-1").orElseThrow().getFirstName());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.cometbid.component.api.generic.exceptions.BadRequestException;
+import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeCursor;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeCursorTest {
+
+    @Test
+    public void testTieBreakerAppended() {
+        EmployeeCursor cursor = EmployeeCursor.first(Sort.by(Sort.Direction.DESC, "lastName"));
+
+        Assertions.assertTrue(cursor.isFirst());
+        Assertions.assertEquals(Sort.by(Sort.Order.desc("lastName"), Sort.Order.asc(Employee.DEFAULT_SORTFIELD)),
+                cursor.getSort());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Employee last = Employee.builder()
+                .firstName("Lexiton")
+                .lastName("Gibson & Sons")
+                .email("lexiton@yahoo.com")
+                .empType(EmployeeType.PART_TIME)
+                .build();
+        last.setEmployeeId("LEMGI6743");
+        last.setCreationDate(OffsetDateTime.of(2024, 5, 1, 10, 15, 30, 123_000, ZoneOffset.UTC));
+
+        EmployeeCursor next = EmployeeCursor.first(Sort.by("creationDate", "lastName", "empType")).after(last);
+        EmployeeCursor decoded = EmployeeCursor.decode(next.encode());
+
+        Assertions.assertFalse(decoded.isFirst());
+        Assertions.assertEquals(next, decoded);
+        Assertions.assertEquals("Gibson & Sons", decoded.getKeys().get(1).value());
+    }
+
+    @Test
+    public void testUnsupportedSort() {
+        Assertions.assertThrows(BadRequestException.class,
+                () -> EmployeeCursor.first(Sort.by("middleName")));
+    }
+
+    @Test
+    public void testTamperedToken() {
+        Assertions.assertThrows(BadRequestException.class, () -> EmployeeCursor.decode("not-a-cursor"));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeExporter;
+import org.cometbid.sample.template.payroll.employee.EmployeeRepository;
+import org.cometbid.sample.template.payroll.it.EmployeeTestBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeExporterTest {
+
+    @Test
+    public void testWritesOneObjectPerLine() throws Exception {
+        Employee first = EmployeeTestBuilder.employee().withEmail("first@example.com").build();
+        Employee second = EmployeeTestBuilder.employee().withEmail("second@example.com").build();
+
+        EmployeeRepository employeeRepository = mock(EmployeeRepository.class);
+        when(employeeRepository.streamAll()).thenReturn(Stream.of(first, second));
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        EmployeeExporter exporter = new EmployeeExporter(employeeRepository, objectMapper,
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(exporter, "entityManager", mock(EntityManager.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assertions.assertEquals(2, exporter.writeNdjson(out));
+
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+        Assertions.assertTrue(ndjson.endsWith("\n"), ndjson);
+
+        String[] lines = ndjson.split("\n");
+        Assertions.assertEquals(2, lines.length);
+        for (String line : lines) {
+            // no separator in front of the second and later objects
+            Assertions.assertTrue(line.startsWith("{"), line);
+        }
+        JsonNode firstLine = objectMapper.readTree(lines[0]);
+        Assertions.assertEquals("first@example.com", firstLine.get(Employee.EMAIL).asText());
+        Assertions.assertEquals("second@example.com", objectMapper.readTree(lines[1]).get(Employee.EMAIL).asText());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.util.Optional;
+import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeCodeBlock;
+import org.cometbid.sample.template.payroll.employee.EmployeeCodeBlockRepository;
+import org.cometbid.sample.template.payroll.employee.EmployeeIdAllocator;
+import org.cometbid.sample.template.payroll.it.EmployeeTestBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeIdAllocatorTest {
+
+    // 41 bits of time, 10 bits of worker id, 12 bits of sequence
+    private static final int SEQUENCE_BITS = 12;
+    private static final long WORKER_MASK = (1L << 10) - 1;
+
+    private EmployeeCodeBlockRepository blockRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        blockRepository = mock(EmployeeCodeBlockRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+    }
+
+    @Test
+    public void testWorkerIdIsLeasedFromTheSequence() {
+        when(blockRepository.nextWorkerSequence()).thenReturn(1024L + 37);
+        EmployeeIdAllocator allocator = new EmployeeIdAllocator(blockRepository, transactionManager, -1, 100);
+
+        long first = allocator.nextId().getId();
+        long second = allocator.nextId().getId();
+
+        Assertions.assertEquals(37, (first >>> SEQUENCE_BITS) & WORKER_MASK);
+        Assertions.assertEquals(37, (second >>> SEQUENCE_BITS) & WORKER_MASK);
+        Assertions.assertTrue(second > first);
+        // leased once, not per id
+        verify(blockRepository).nextWorkerSequence();
+    }
+
+    @Test
+    public void testConfiguredWorkerIdIsNotLeased() {
+        EmployeeIdAllocator allocator = new EmployeeIdAllocator(blockRepository, transactionManager, 5, 100);
+
+        Assertions.assertEquals(5, (allocator.nextId().getId() >>> SEQUENCE_BITS) & WORKER_MASK);
+        verify(blockRepository, times(0)).nextWorkerSequence();
+    }
+
+    @Test
+    public void testConcurrentFirstReservationsAreRetried() {
+        Employee employee = EmployeeTestBuilder.employee()
+                .withFirstName("John").withMiddleName("Michael").withLastName("Doe").build();
+        EmployeeCodeBlock existing = new EmployeeCodeBlock("JOMDO", 201);
+
+        // two other instances insert the prefix row first, the third attempt finds it
+        when(blockRepository.findByPrefix("JOMDO"))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(existing));
+        when(blockRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate prefix"))
+                .thenThrow(new DataIntegrityViolationException("duplicate prefix"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        EmployeeIdAllocator allocator = new EmployeeIdAllocator(blockRepository, transactionManager, 1, 100);
+
+        Assertions.assertEquals("JOMDO0201", allocator.nextEmployeeCode(employee));
+        Assertions.assertEquals("JOMDO0202", allocator.nextEmployeeCode(employee));
+        Assertions.assertEquals(301, existing.getNextValue());
+    }
+
+    @Test
+    public void testReservationGivesUpAfterRepeatedConflicts() {
+        Employee employee = EmployeeTestBuilder.employee().build();
+
+        when(blockRepository.findByPrefix(anyString())).thenReturn(Optional.empty());
+        when(blockRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate prefix"));
+
+        EmployeeIdAllocator allocator = new EmployeeIdAllocator(blockRepository, transactionManager, 1, 100);
+
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> allocator.nextEmployeeCode(employee));
+        verify(blockRepository, times(5)).saveAndFlush(any());
+    }
+}
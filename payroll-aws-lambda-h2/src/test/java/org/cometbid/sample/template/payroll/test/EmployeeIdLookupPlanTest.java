@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.cometbid.sample.template.payroll.employee.EmployeeId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeIdLookupPlanTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    public void createSchema() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:employee-plan;DB_CLOSE_DELAY=-1", "sa", "");
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:schema.sql'");
+        }
+    }
+
+    @AfterEach
+    public void dropSchema() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testLookupByEmployeeIdUsesUniqueIndex() throws SQLException {
+        String plan = explain("SELECT * FROM employee WHERE employee_id = 'LEMGI6743'");
+
+        Assertions.assertTrue(plan.contains("UN_EMP_ID_IDX"), plan);
+    }
+
+    @Test
+    public void testCaseInsensitiveLookupScansTable() throws SQLException {
+        String plan = explain("SELECT * FROM employee WHERE UPPER(employee_id) = UPPER('lemgi6743')");
+
+        Assertions.assertFalse(plan.contains("UN_EMP_ID_IDX"), plan);
+    }
+
+    @Test
+    public void testLowerCaseEmployeeIdRejected() {
+        Assertions.assertThrows(SQLException.class, () -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("INSERT INTO employee (id, employee_id, first_name, last_name, email, "
+                        + "sal_amount, sal_currency) VALUES (1, 'lemgi6743', 'Lexiton', 'Gibson', "
+                        + "'lexiton@yahoo.com', 100, 'USD')");
+            }
+        });
+    }
+
+    @Test
+    public void testPrimaryKeyIsBigint() throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+                        + "WHERE TABLE_NAME = 'EMPLOYEE' AND COLUMN_NAME = 'ID'")) {
+            Assertions.assertTrue(rs.next());
+            Assertions.assertEquals("BIGINT", rs.getString(1));
+        }
+    }
+
+    @Test
+    public void testEmployeeIdConverterRoundTrip() {
+        EmployeeId.Converter converter = new EmployeeId.Converter();
+
+        Assertions.assertEquals(4_611_686_018_427_387_904L,
+                converter.convertToDatabaseColumn(new EmployeeId(4_611_686_018_427_387_904L)));
+        Assertions.assertEquals(42L, converter.convertToEntityAttribute(42L).getId());
+        Assertions.assertNull(converter.convertToDatabaseColumn(null));
+    }
+
+    private String explain(String query) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("EXPLAIN " + query)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
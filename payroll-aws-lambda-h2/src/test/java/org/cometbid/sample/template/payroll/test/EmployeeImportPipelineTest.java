@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeBatchResult;
+import org.cometbid.sample.template.payroll.employee.EmployeeBatchWriter;
+import org.cometbid.sample.template.payroll.employee.EmployeeBuilder;
+import org.cometbid.sample.template.payroll.employee.EmployeeEmailFilter;
+import org.cometbid.sample.template.payroll.employee.EmployeeId;
+import org.cometbid.sample.template.payroll.employee.EmployeeIdAllocator;
+import org.cometbid.sample.template.payroll.employee.EmployeeImportPipeline;
+import org.cometbid.sample.template.payroll.employee.EmployeeImportReport;
+import org.cometbid.sample.template.payroll.employee.EmployeeRepository;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeImportPipelineTest {
+
+    private static final String HEADER = "email,firstName,middleName,lastName,empType,salary,currency";
+
+    private EmployeeBatchWriter batchWriter;
+    private EmployeeImportPipeline pipeline;
+
+    // employees that were inserted, by email
+    private final Map<String, Employee> inserted = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        EmployeeIdAllocator idAllocator = mock(EmployeeIdAllocator.class);
+        AtomicLong ids = new AtomicLong();
+        when(idAllocator.nextId()).thenAnswer(invocation -> new EmployeeId(ids.incrementAndGet()));
+        when(idAllocator.nextEmployeeCode(any(Employee.class)))
+                .thenAnswer(invocation -> "EMP" + ids.incrementAndGet());
+
+        EmployeeBuilder employeeBuilder = Mappers.getMapper(EmployeeBuilder.class);
+        ReflectionTestUtils.setField(employeeBuilder, "idAllocator", idAllocator);
+
+        batchWriter = mock(EmployeeBatchWriter.class);
+        doAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            employees.forEach(e -> inserted.put(e.getEmail(), e));
+            return null;
+        }).when(batchWriter).insert(anyList());
+
+        pipeline = new EmployeeImportPipeline(mock(EmployeeRepository.class), employeeBuilder,
+                mock(LocalValidatorFactoryBean.class), batchWriter, mock(EmployeeEmailFilter.class),
+                new ObjectMapper(), 2, 2, 2, 100);
+    }
+
+    @Test
+    public void testCsvQuotesCommasAndLineEndings() throws IOException {
+        EmployeeImportReport report = pipeline.importCsv(csv(
+                HEADER,
+                "ann@example.com,Ann,,\"Smith, Jr.\",FULL-TIME,65000.50,USD",
+                "\"bob@example.com\",Bob,\"\",\"O\"\"Brien\",PART-TIME,1000,EUR",
+                "carl@example.com,Carl,Maria,Jones,CONTRACT,70000,GBP",
+                "eve@example.com,Eve,,Adams,FULL-TIME,\"1,000\",USD",
+                "dan@example.com,Dan,,\"Unterminated,FULL-TIME,1,USD"));
+
+        Assertions.assertEquals(5, report.rows());
+        Assertions.assertEquals(3, report.created());
+        Assertions.assertEquals(Map.of(EmployeeBatchResult.Status.INVALID, 2L), report.rejected());
+
+        Employee ann = inserted.get("ann@example.com");
+        Assertions.assertEquals("Smith, Jr.", ann.getLastName());
+        Assertions.assertNull(ann.getMiddleName());
+        Assertions.assertEquals(EmployeeType.FULL_TIME, ann.getEmpType());
+        Assertions.assertEquals(0, new BigDecimal("65000.50")
+                .compareTo(ann.getSalary().getNumber().numberValue(BigDecimal.class)));
+
+        // the line ended with CRLF, the carriage return is not part of the currency
+        Assertions.assertEquals("GBP", inserted.get("carl@example.com").getSalary().getCurrency().getCurrencyCode());
+        Assertions.assertEquals("Maria", inserted.get("carl@example.com").getMiddleName());
+
+        Employee bob = inserted.get("bob@example.com");
+        Assertions.assertEquals("O\"Brien", bob.getLastName());
+        Assertions.assertNull(bob.getMiddleName());
+
+        // the quoted comma stays in its field, which is then not a number
+        Assertions.assertFalse(inserted.containsKey("eve@example.com"));
+        Assertions.assertEquals(List.of(4L, 5L), report.errors().stream().map(EmployeeBatchResult::index).toList());
+    }
+
+    @Test
+    public void testRejectedChunkIsRetriedRowByRow() throws IOException {
+        doAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            if (employees.stream().anyMatch(e -> "taken@example.com".equals(e.getEmail()))) {
+                throw new DataIntegrityViolationException("Unique index violation: UN_EMP_EMAIL_IDX");
+            }
+            employees.forEach(e -> inserted.put(e.getEmail(), e));
+            return null;
+        }).when(batchWriter).insert(anyList());
+
+        EmployeeImportReport report = pipeline.importCsv(csv(
+                HEADER,
+                "ann@example.com,Ann,,Smith,FULL-TIME,65000,USD",
+                "taken@example.com,Tom,,Taken,FULL-TIME,65000,USD",
+                "carl@example.com,Carl,,Jones,CONTRACT,70000,USD"));
+
+        Assertions.assertEquals(3, report.rows());
+        Assertions.assertEquals(2, report.created());
+        Assertions.assertEquals(Map.of(EmployeeBatchResult.Status.DUPLICATE, 1L), report.rejected());
+        Assertions.assertEquals(2, report.errors().get(0).index());
+        Assertions.assertTrue(inserted.containsKey("ann@example.com"));
+        Assertions.assertTrue(inserted.containsKey("carl@example.com"));
+    }
+
+    @Test
+    public void testFailedChunkOnlyRejectsRowsWithoutOutcome() throws IOException {
+        doAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            if (employees.stream().anyMatch(e -> "taken@example.com".equals(e.getEmail()))) {
+                if (employees.size() > 1) {
+                    throw new DataIntegrityViolationException("Unique index violation: UN_EMP_EMAIL_IDX");
+                }
+                throw new IllegalStateException("Connection lost");
+            }
+            employees.forEach(e -> inserted.put(e.getEmail(), e));
+            return null;
+        }).when(batchWriter).insert(anyList());
+
+        // chunks of two: a repeated email, then a chunk whose retry fails after its first row
+        EmployeeImportReport report = pipeline.importCsv(csv(
+                HEADER,
+                "ann@example.com,Ann,,Smith,FULL-TIME,65000,USD",
+                "ann@example.com,Ann,,Smith,FULL-TIME,65000,USD",
+                "carl@example.com,Carl,,Jones,CONTRACT,70000,USD",
+                "taken@example.com,Tom,,Taken,FULL-TIME,65000,USD"));
+
+        Assertions.assertEquals(4, report.rows());
+        Assertions.assertEquals(2, report.created());
+        Assertions.assertEquals(Map.of(EmployeeBatchResult.Status.DUPLICATE, 1L,
+                EmployeeBatchResult.Status.FAILED, 1L), report.rejected());
+        Assertions.assertEquals(List.of(2L, 4L), report.errors().stream().map(EmployeeBatchResult::index).toList());
+    }
+
+    private static InputStream csv(String... lines) {
+        return new ByteArrayInputStream((String.join("\r\n", lines) + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.util.List;
+import java.util.OptionalLong;
+import org.cometbid.sample.template.payroll.employee.CursorPage;
+import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeCache;
+import org.cometbid.sample.template.payroll.employee.EmployeeCounters;
+import org.cometbid.sample.template.payroll.employee.EmployeeCursor;
+import org.cometbid.sample.template.payroll.employee.EmployeeFinderServiceImpl;
+import org.cometbid.sample.template.payroll.employee.EmployeeNameIndex;
+import org.cometbid.sample.template.payroll.employee.EmployeeRepository;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.data.domain.Sort;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeKeysetPagingTest {
+
+    private EmployeeRepository employeeRepository;
+    private EmployeeCounters employeeCounters;
+    private EmployeeFinderServiceImpl finderService;
+
+    @BeforeEach
+    public void setUp() {
+        employeeRepository = mock(EmployeeRepository.class);
+        employeeCounters = mock(EmployeeCounters.class);
+        finderService = new EmployeeFinderServiceImpl(employeeRepository, mock(EmployeeNameIndex.class),
+                mock(EmployeeCache.class), employeeCounters);
+    }
+
+    private static Employee employee(String employeeId) {
+        Employee employee = Employee.builder()
+                .firstName("Ada")
+                .lastName("Lovelace")
+                .email(employeeId + "@example.com")
+                .empType(EmployeeType.FULL_TIME)
+                .build();
+        employee.setEmployeeId(employeeId);
+        return employee;
+    }
+
+    @Test
+    public void testEmptyPageHasNoNextCursor() {
+        when(employeeRepository.findNextByCursor(any(), anyInt())).thenReturn(List.of());
+
+        CursorPage<Employee> page = finderService.findAll(EmployeeCursor.first(Sort.by(Employee.DEFAULT_SORTFIELD)), 0, false);
+
+        Assertions.assertTrue(page.getContent().isEmpty());
+        Assertions.assertFalse(page.isHasNext());
+        Assertions.assertNull(page.getNextCursor());
+        verify(employeeRepository).findNextByCursor(any(), eq(2));
+    }
+
+    @Test
+    public void testNextCursorStartsAfterTheLastRow() {
+        EmployeeCursor first = EmployeeCursor.first(Sort.by(Employee.DEFAULT_SORTFIELD));
+        when(employeeRepository.findNextByCursor(any(), anyInt()))
+                .thenReturn(List.of(employee("E1"), employee("E2"), employee("E3")));
+
+        CursorPage<Employee> page = finderService.findAll(first, 2, false);
+
+        Assertions.assertEquals(2, page.getSize());
+        Assertions.assertTrue(page.isHasNext());
+        Assertions.assertEquals(first.after(page.getContent().get(1)).encode(), page.getNextCursor());
+    }
+
+    @Test
+    public void testTotalComesFromTheCounters() {
+        EmployeeCursor first = EmployeeCursor.first(Sort.by(Employee.DEFAULT_SORTFIELD));
+        when(employeeRepository.findNextByCursor(any(), anyInt())).thenReturn(List.of(employee("E1")));
+        when(employeeCounters.total()).thenReturn(OptionalLong.of(42));
+
+        Assertions.assertEquals(42L, finderService.findAll(first, 2, true).getTotalElements());
+        verify(employeeRepository, never()).count();
+
+        // not seeded yet, the table is counted
+        when(employeeCounters.total()).thenReturn(OptionalLong.empty());
+        when(employeeRepository.count()).thenReturn(7L);
+
+        Assertions.assertEquals(7L, finderService.findAll(first, 2, true).getTotalElements());
+        Assertions.assertNull(finderService.findAll(first, 2, false).getTotalElements());
+    }
+}
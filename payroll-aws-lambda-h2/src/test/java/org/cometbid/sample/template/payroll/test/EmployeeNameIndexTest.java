@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.cometbid.sample.template.payroll.employee.EmployeeChangedEvent;
+import org.cometbid.sample.template.payroll.employee.EmployeeNameIndex;
+import org.cometbid.sample.template.payroll.employee.EmployeeNameView;
+import org.cometbid.sample.template.payroll.employee.EmployeeRepository;
+import org.cometbid.sample.template.payroll.employee.EmployeeState;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeNameIndexTest {
+
+    private static EmployeeNameIndex indexOf(EmployeeNameView... rows) {
+        EmployeeRepository employeeRepository = mock(EmployeeRepository.class);
+        when(employeeRepository.streamAllBy(EmployeeNameView.class)).thenReturn(Stream.of(rows));
+
+        EmployeeNameIndex index = new EmployeeNameIndex(employeeRepository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(index, "enabled", true);
+        index.rebuild();
+        return index;
+    }
+
+    private static EmployeeNameView view(String employeeId, String firstName, String lastName) {
+        return new EmployeeNameView() {
+            @Override
+            public String getEmployeeId() {
+                return employeeId;
+            }
+
+            @Override
+            public String getFirstName() {
+                return firstName;
+            }
+
+            @Override
+            public String getMiddleName() {
+                return null;
+            }
+
+            @Override
+            public String getLastName() {
+                return lastName;
+            }
+        };
+    }
+
+    private static EmployeeChangedEvent created(String employeeId, String firstName, String lastName) {
+        EmployeeState after = new EmployeeState(employeeId, firstName, null, lastName, null,
+                EmployeeType.FULL_TIME, null, OffsetDateTime.now(), 0);
+
+        return new EmployeeChangedEvent(EmployeeChangedEvent.ChangeType.CREATED, employeeId, null, after);
+    }
+
+    @Test
+    public void testEmptyUntilBuilt() {
+        EmployeeNameIndex index = new EmployeeNameIndex(mock(EmployeeRepository.class),
+                mock(PlatformTransactionManager.class));
+
+        Assertions.assertEquals(Optional.empty(), index.search("ann", 10));
+    }
+
+    @Test
+    public void testRanksPrefixHitsBeforeInfixHits() {
+        EmployeeNameIndex index = indexOf(
+                view("E1", "Ann", "Smith"),
+                view("E2", "Joanna", "Smith"),
+                view("E3", "Annabel", "Jones"),
+                view("E4", "Änn", "Baker"));
+
+        Assertions.assertEquals(List.of("E4", "E1", "E3", "E2"), index.search("ann", 10).orElseThrow());
+        Assertions.assertEquals(List.of("E4", "E1"), index.search("ann", 2).orElseThrow());
+        Assertions.assertEquals(List.of("E1", "E2"), index.search("smith", 10).orElseThrow());
+        Assertions.assertEquals(List.of("E2"), index.search("anna smi", 10).orElseThrow());
+        Assertions.assertEquals(List.of(), index.search("zed", 10).orElseThrow());
+    }
+
+    @Test
+    public void testFollowsChangesAndCompacts() {
+        EmployeeNameIndex index = indexOf(
+                view("E1", "Ann", "Smith"),
+                view("E2", "Bob", "Jones"),
+                view("E3", "Carl", "Brown"));
+
+        index.onEmployeeChanged(EmployeeChangedEvent.deleted("E1"));
+        index.onEmployeeChanged(EmployeeChangedEvent.deleted("E2"));
+        Assertions.assertEquals(List.of(), index.search("bob", 10).orElseThrow());
+
+        // more removed than live employees: the next scheduled run compacts the segment
+        index.scheduledCompaction();
+        Assertions.assertEquals(indexOf(view("E3", "Carl", "Brown")).getStats(), index.getStats());
+        Assertions.assertEquals(List.of(), index.search("ann", 10).orElseThrow());
+
+        index.onEmployeeChanged(created("E4", "Ann", "Lee"));
+        Assertions.assertEquals(List.of("E4"), index.search("ann", 10).orElseThrow());
+        Assertions.assertEquals(List.of("E3"), index.search("carl", 10).orElseThrow());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeId;
+import org.cometbid.sample.template.payroll.employee.EmployeeRepository;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Saves and reads an employee through the repository, the id must be stored
+ * as its plain long value and found again by both keys.
+ *
+ * @author samueladebowale
+ */
+@DataJpaTest
+public class EmployeeRepositoryTest {
+
+    // above 2^53 so that a lossy conversion would show
+    private static final long ID = 4_611_686_018_427_387_905L;
+
+    // the application class scans every component, the JPA slice only needs these
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = Employee.class)
+    @EnableJpaRepositories(basePackageClasses = EmployeeRepository.class)
+    static class JpaConfiguration {
+    }
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testSaveAndFindByBothKeys() {
+        Employee employee = Employee.builder()
+                .id(new EmployeeId(ID))
+                .firstName("Lexiton")
+                .lastName("Gibson")
+                .email("lexiton@yahoo.com")
+                .empType(EmployeeType.FULL_TIME)
+                .salary(Money.of(65_000, "USD"))
+                .build();
+        employee.setEmployeeId("LEGI0001");
+        employee.setCreationDate(OffsetDateTime.now(ZoneOffset.UTC));
+
+        employeeRepository.saveAndFlush(employee);
+        entityManager.clear();
+
+        Assertions.assertEquals(ID, jdbcTemplate.queryForObject(
+                "SELECT id FROM employee WHERE employee_id = 'LEGI0001'", Long.class));
+
+        Employee byId = employeeRepository.findById(new EmployeeId(ID)).orElseThrow();
+        Assertions.assertEquals(ID, byId.getId().getId());
+        Assertions.assertEquals("LEGI0001", byId.getEmployeeId());
+
+        Employee byEmployeeId = employeeRepository.findByEmployeeId("LEGI0001").orElseThrow();
+        Assertions.assertEquals(ID, byEmployeeId.getId().getId());
+        Assertions.assertEquals(Money.of(65_000, "USD"), byEmployeeId.getSalary());
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.employee.EmployeeChangedEvent;
+import org.cometbid.sample.template.payroll.employee.EmployeeRepository;
+import org.cometbid.sample.template.payroll.employee.EmployeeSalarySnapshot;
+import org.cometbid.sample.template.payroll.employee.EmployeeSalaryStats;
+import org.cometbid.sample.template.payroll.employee.EmployeeState;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.cometbid.sample.template.payroll.fx.FxRateTable;
+import org.cometbid.sample.template.payroll.money.MinorUnitMoney;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeSalarySnapshotTest {
+
+    private static final CurrencyFactory.Currency USD = CurrencyFactory.Currency.USD;
+    private static final OffsetDateTime MARCH = OffsetDateTime.of(2024, 3, 15, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    private EmployeeRepository employeeRepository;
+    private EmployeeSalarySnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        employeeRepository = mock(EmployeeRepository.class);
+        snapshot = new EmployeeSalarySnapshot(employeeRepository, mock(PlatformTransactionManager.class),
+                mock(FxRateTable.class), 0.01);
+    }
+
+    private void rebuildFrom(Object[]... rows) {
+        when(employeeRepository.count()).thenReturn((long) rows.length);
+        when(employeeRepository.streamSalaryColumns()).thenReturn(Stream.of(rows));
+        snapshot.rebuild();
+    }
+
+    private static Object[] row(String employeeId, String type, String salary, Object creationDate) {
+        return new Object[]{employeeId, type, new BigDecimal(salary), "USD", creationDate};
+    }
+
+    private static EmployeeState state(String employeeId, EmployeeType type, String salary) {
+        return new EmployeeState(employeeId, "Ada", null, "Lovelace", employeeId + "@example.com", type,
+                Money.of(new BigDecimal(salary), "USD"), MARCH, 0);
+    }
+
+    @Test
+    public void testEmptyUntilBuilt() {
+        Assertions.assertTrue(snapshot.employeeCount().isEmpty());
+        Assertions.assertEquals(Map.of(), snapshot.payrollByCurrency());
+        Assertions.assertEquals(Map.of(), snapshot.hiresByMonth(null, null));
+    }
+
+    @Test
+    public void testAggregatesRowsOfTheRebuild() {
+        rebuildFrom(
+                row("E1", "FULL-TIME", "1000.00", Timestamp.valueOf(LocalDateTime.of(2024, 1, 10, 8, 0))),
+                row("E2", "FULL-TIME", "3000.00", MARCH),
+                row("E3", "PART-TIME", "500.50", MARCH.toLocalDateTime()));
+
+        Assertions.assertEquals(3, snapshot.employeeCount().getAsLong());
+        Assertions.assertEquals(Map.of("USD", Map.of("employees", 3L,
+                "totalSalary", MinorUnitMoney.of(450050, USD))), snapshot.payrollByCurrency());
+        Assertions.assertEquals(Map.of(
+                "FULL-TIME", Map.of("USD", MinorUnitMoney.of(200000, USD)),
+                "PART-TIME", Map.of("USD", MinorUnitMoney.of(50050, USD))), snapshot.averageSalaryByType());
+        Assertions.assertEquals(Map.of("2024-01", 1L, "2024-03", 2L), snapshot.hiresByMonth(null, null));
+        Assertions.assertEquals(Map.of("2024-03", 2L),
+                snapshot.hiresByMonth(LocalDate.of(2024, 2, 1), null));
+    }
+
+    @Test
+    public void testHiresWithoutCreationDateAreNotCounted() {
+        rebuildFrom(
+                row("E1", "FULL-TIME", "1000.00", null),
+                row("E2", "FULL-TIME", "1000.00", MARCH));
+
+        Assertions.assertEquals(2, snapshot.employeeCount().getAsLong());
+        Assertions.assertEquals(Map.of("2024-03", 1L), snapshot.hiresByMonth(null, null));
+        Assertions.assertFalse(snapshot.hiresByMonth(null, null).containsKey("1970-01"));
+    }
+
+    @Test
+    public void testSalaryBeyondMinorUnitsIsCountedButNotAggregated() {
+        rebuildFrom(
+                row("E1", "FULL-TIME", "1000.00", MARCH),
+                row("E2", "FULL-TIME", "1E+30", MARCH));
+
+        Assertions.assertEquals(2, snapshot.employeeCount().getAsLong());
+        Assertions.assertEquals(Map.of("USD", Map.of("employees", 1L,
+                "totalSalary", MinorUnitMoney.of(100000, USD))), snapshot.payrollByCurrency());
+    }
+
+    @Test
+    public void testFollowsChangeEvents() {
+        rebuildFrom(row("E1", "FULL-TIME", "1000.00", MARCH));
+
+        EmployeeState created = state("E2", EmployeeType.PART_TIME, "400.00");
+        snapshot.onEmployeeChanged(new EmployeeChangedEvent(EmployeeChangedEvent.ChangeType.CREATED,
+                "E2", null, created));
+        Assertions.assertEquals(2, snapshot.employeeCount().getAsLong());
+        Assertions.assertEquals(Map.of("2024-03", 2L), snapshot.hiresByMonth(null, null));
+
+        snapshot.onEmployeeChanged(new EmployeeChangedEvent(EmployeeChangedEvent.ChangeType.UPDATED, "E2", created,
+                state("E2", EmployeeType.FULL_TIME, "600.00")));
+        Assertions.assertEquals(Map.of("FULL-TIME", Map.of("USD", MinorUnitMoney.of(80000, USD))),
+                snapshot.averageSalaryByType());
+
+        snapshot.onEmployeeChanged(EmployeeChangedEvent.deleted("E1"));
+        Assertions.assertEquals(1, snapshot.employeeCount().getAsLong());
+        Assertions.assertEquals(Map.of("USD", Map.of("employees", 1L,
+                "totalSalary", MinorUnitMoney.of(60000, USD))), snapshot.payrollByCurrency());
+    }
+
+    @Test
+    public void testExtremesFollowRemovals() {
+        rebuildFrom(
+                row("E1", "FULL-TIME", "1000.00", MARCH),
+                row("E2", "FULL-TIME", "3000.00", MARCH),
+                row("E3", "FULL-TIME", "2000.00", MARCH));
+        EmployeeSalaryStats stats = new EmployeeSalaryStats(snapshot);
+
+        Assertions.assertEquals(MinorUnitMoney.of(100000, USD), aggregate(stats).get("min"));
+        Assertions.assertEquals(MinorUnitMoney.of(300000, USD), aggregate(stats).get("max"));
+
+        snapshot.onEmployeeChanged(EmployeeChangedEvent.deleted("E2"));
+        Assertions.assertEquals(2L, aggregate(stats).get("count"));
+        Assertions.assertEquals(MinorUnitMoney.of(200000, USD), aggregate(stats).get("max"));
+
+        snapshot.onEmployeeChanged(EmployeeChangedEvent.updated(new EmployeeState("E1", null, null, null, null,
+                null, Money.of(new BigDecimal("2500.00"), "USD"), null, 1)));
+        Assertions.assertEquals(MinorUnitMoney.of(200000, USD), aggregate(stats).get("min"));
+        Assertions.assertEquals(MinorUnitMoney.of(250000, USD), aggregate(stats).get("max"));
+
+        snapshot.onEmployeeChanged(EmployeeChangedEvent.deleted("E1"));
+        snapshot.onEmployeeChanged(EmployeeChangedEvent.deleted("E3"));
+        Assertions.assertEquals(List.of(), stats.getStats().get("aggregates"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> aggregate(EmployeeSalaryStats stats) {
+        List<Map<String, Object>> aggregates = (List<Map<String, Object>>) stats.getStats().get("aggregates");
+        Assertions.assertEquals(1, aggregates.size());
+        return aggregates.get(0);
+    }
+}
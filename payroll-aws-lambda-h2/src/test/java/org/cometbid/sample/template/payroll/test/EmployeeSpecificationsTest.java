@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import org.cometbid.component.api.generic.exceptions.BadRequestException;
+import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeSearchCriteria;
+import org.cometbid.sample.template.payroll.employee.EmployeeSpecifications;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class EmployeeSpecificationsTest {
+
+    @Test
+    public void testMatchesAKnownEmployeeType() {
+        Root<Employee> root = mock(Root.class);
+        Path<Object> empType = mock(Path.class);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        when(root.get("empType")).thenReturn(empType);
+
+        EmployeeSpecifications.matching(EmployeeSearchCriteria.builder().employeeType(" part-time ").build())
+                .toPredicate(root, mock(CriteriaQuery.class), cb);
+
+        verify(cb).equal(empType, EmployeeType.PART_TIME);
+    }
+
+    @Test
+    public void testUnknownEmployeeTypeIsRejected() {
+        EmployeeSearchCriteria criteria = EmployeeSearchCriteria.builder().employeeType("INTERN").build();
+
+        Assertions.assertThrows(BadRequestException.class, () -> EmployeeSpecifications.matching(criteria));
+    }
+
+    @Test
+    public void testSalaryRangeNeedsACurrency() {
+        EmployeeSearchCriteria criteria = EmployeeSearchCriteria.builder()
+                .minSalary(new BigDecimal("1000")).build();
+
+        Assertions.assertThrows(BadRequestException.class, () -> EmployeeSpecifications.matching(criteria));
+    }
+
+    @Test
+    public void testInvertedRangesAreRejected() {
+        EmployeeSearchCriteria salary = EmployeeSearchCriteria.builder().currency("USD")
+                .minSalary(new BigDecimal("5000")).maxSalary(new BigDecimal("1000")).build();
+        OffsetDateTime now = OffsetDateTime.now();
+        EmployeeSearchCriteria created = EmployeeSearchCriteria.builder()
+                .createdFrom(now).createdTo(now.minusDays(1)).build();
+
+        Assertions.assertThrows(BadRequestException.class, () -> EmployeeSpecifications.matching(salary));
+        Assertions.assertThrows(BadRequestException.class, () -> EmployeeSpecifications.matching(created));
+    }
+
+    @Test
+    public void testEqualBoundsAreAccepted() {
+        Root<Employee> root = mock(Root.class);
+        Path<Object> salary = mock(Path.class);
+        Path<Object> amount = mock(Path.class);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        when(root.get(any(String.class))).thenReturn(salary);
+        when(salary.get(any(String.class))).thenReturn(amount);
+
+        BigDecimal bound = new BigDecimal("1000");
+        EmployeeSpecifications.matching(EmployeeSearchCriteria.builder().currency("USD")
+                .minSalary(bound).maxSalary(bound).build())
+                .toPredicate(root, mock(CriteriaQuery.class), cb);
+
+        verify(cb).between(any(), any(BigDecimal.class), any(BigDecimal.class));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import org.cometbid.component.api.generic.exceptions.BadRequestException;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.fx.FxRateTable;
+import org.cometbid.sample.template.payroll.fx.InMemoryFxRateProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class FxRateTableTest {
+
+    private static final CurrencyFactory.Currency USD = CurrencyFactory.Currency.USD;
+    private static final CurrencyFactory.Currency EUR = CurrencyFactory.Currency.EUR;
+    private static final CurrencyFactory.Currency JPY = CurrencyFactory.Currency.JPY;
+    private static final CurrencyFactory.Currency KWD = CurrencyFactory.Currency.KWD;
+    private static final CurrencyFactory.Currency GBP = CurrencyFactory.Currency.GBP;
+
+    @Test
+    public void testConvertsBetweenFractionDigits() {
+        FxRateTable table = new FxRateTable(provider(), Duration.ofHours(1));
+
+        // 100.00 USD
+        Assertions.assertEquals(9_200, table.convert(10_000, USD, EUR));
+        Assertions.assertEquals(15_000, table.convert(10_000, USD, JPY));
+        Assertions.assertEquals(30_000, table.convert(10_000, USD, KWD));
+        // cross rate through the base currency, 100.00 EUR
+        Assertions.assertEquals(16_304, table.convert(10_000, EUR, JPY));
+    }
+
+    @Test
+    public void testBatchAndTotalMatchSingleConversions() {
+        FxRateTable table = new FxRateTable(provider(), Duration.ofHours(1));
+
+        long[] amounts = {10_000, 25_050, 1_000_000, 7};
+        short[] currencies = {(short) USD.ordinal(), (short) EUR.ordinal(), (short) JPY.ordinal(),
+            (short) KWD.ordinal()};
+        long[] out = new long[amounts.length];
+        table.convert(amounts, currencies, amounts.length, EUR, out);
+
+        long[] byCurrency = new long[CurrencyFactory.Currency.values().length];
+        long expected = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            CurrencyFactory.Currency from = CurrencyFactory.Currency.values()[currencies[i]];
+            Assertions.assertEquals(table.convert(amounts[i], from, EUR), out[i]);
+            byCurrency[currencies[i]] += amounts[i];
+            expected += out[i];
+        }
+        Assertions.assertEquals(expected, table.total(byCurrency, EUR), 1);
+    }
+
+    @Test
+    public void testMissingRateIsRejected() {
+        InMemoryFxRateProvider provider = provider();
+        FxRateTable table = new FxRateTable(provider, Duration.ZERO);
+
+        Assertions.assertFalse(table.hasRate(GBP, USD));
+        Assertions.assertThrows(BadRequestException.class, () -> table.convert(100, GBP, USD));
+        Assertions.assertThrows(BadRequestException.class, () -> table.convert(new long[]{100, 100},
+                new short[]{(short) USD.ordinal(), (short) GBP.ordinal()}, 2, USD, new long[2]));
+
+        long[] byCurrency = new long[CurrencyFactory.Currency.values().length];
+        byCurrency[USD.ordinal()] = 100;
+        byCurrency[GBP.ordinal()] = 80;
+        FxRateTable.PartialTotal partial = table.partialTotal(byCurrency, USD);
+        Assertions.assertEquals(100, partial.minorUnits());
+        Assertions.assertEquals(80, partial.unconverted()[GBP.ordinal()]);
+        Assertions.assertEquals(0, partial.unconverted()[USD.ordinal()]);
+
+        // picked up by the next refresh
+        provider.setRate("GBP", new BigDecimal("0.80"));
+        table.refresh();
+        Assertions.assertEquals(125, table.convert(100, GBP, USD));
+    }
+
+    private static InMemoryFxRateProvider provider() {
+        InMemoryFxRateProvider provider = new InMemoryFxRateProvider("USD");
+        provider.setRate("EUR", new BigDecimal("0.92"));
+        provider.setRate("JPY", new BigDecimal("150"));
+        provider.setRate("KWD", new BigDecimal("0.3"));
+        return provider;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.Random;
+import javax.money.MonetaryAmount;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.money.MinorUnitMoney;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class MinorUnitMoneyTest {
+
+    private static final CurrencyFactory.Currency USD = CurrencyFactory.Currency.USD;
+    private static final CurrencyFactory.Currency JPY = CurrencyFactory.Currency.JPY;
+    private static final CurrencyFactory.Currency KWD = CurrencyFactory.Currency.KWD;
+
+    @Test
+    public void testFormatsLikeBigDecimal() {
+        Random random = new Random(5);
+
+        for (CurrencyFactory.Currency currency : new CurrencyFactory.Currency[]{USD, JPY, KWD}) {
+            for (int i = 0; i < 10_000; i++) {
+                long minorUnits = random.nextInt(3) == 0 ? random.nextInt(2_000) - 1_000 : random.nextLong();
+                MinorUnitMoney money = MinorUnitMoney.of(minorUnits, currency);
+
+                Assertions.assertEquals(currency + " " + money.toBigDecimal().toPlainString(), money.toString());
+            }
+        }
+        Assertions.assertEquals("USD 0.05", MinorUnitMoney.of(5, USD).toString());
+        Assertions.assertEquals("USD -0.05", MinorUnitMoney.of(-5, USD).toString());
+        Assertions.assertEquals("JPY 0", MinorUnitMoney.of(0, JPY).toString());
+        Assertions.assertEquals("USD -92233720368547758.08", MinorUnitMoney.of(Long.MIN_VALUE, USD).toString());
+    }
+
+    @Test
+    public void testConvertsFromAndToMonetaryAmount() {
+        MonetaryAmount salary = Money.of(new BigDecimal("65000.125"), "USD");
+        MinorUnitMoney money = MinorUnitMoney.of(salary);
+
+        // half even to the cent
+        Assertions.assertEquals(6_500_012, money.minorUnits());
+        Assertions.assertEquals(USD, money.currency());
+        Assertions.assertEquals(Money.of(new BigDecimal("65000.12"), "USD"), money.toMonetaryAmount());
+
+        Assertions.assertEquals(MinorUnitMoney.of(4, USD), MinorUnitMoney.of(7, USD).dividedBy(2));
+        Assertions.assertEquals(MinorUnitMoney.of(2, USD), MinorUnitMoney.of(5, USD).dividedBy(2));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MinorUnitMoney.of(1, USD).plus(MinorUnitMoney.of(1, JPY)));
+    }
+
+    @Test
+    public void testSerializesAsMonetaryAmount() throws JsonProcessingException {
+        ObjectMapper mapper = new ObjectMapper();
+
+        Assertions.assertEquals("{\"amount\":\"1234.50\",\"currency\":\"USD\"}",
+                mapper.writeValueAsString(MinorUnitMoney.of(123_450, USD)));
+        Assertions.assertEquals("{\"amount\":\"-0.125\",\"currency\":\"KWD\"}",
+                mapper.writeValueAsString(MinorUnitMoney.of(-125, KWD)));
+    }
+
+    @Test
+    public void testSumsLikeMonetaryAmount() {
+        Random random = new Random(9);
+        MonetaryAmount total = Money.of(0, "USD");
+        MinorUnitMoney sum = MinorUnitMoney.of(0, USD);
+
+        for (int i = 0; i < 10_000; i++) {
+            long salary = 3_000_000 + random.nextInt(15_000_000);
+            total = total.add(MinorUnitMoney.of(salary, USD).toMonetaryAmount());
+            sum = sum.plus(MinorUnitMoney.of(salary, USD));
+        }
+        Assertions.assertEquals(total, sum.toMonetaryAmount());
+    }
+
+    @Test
+    public void testAmountsBeyondMinorUnitsAreRejected() {
+        Assertions.assertEquals(Long.MAX_VALUE,
+                MinorUnitMoney.toMinorUnits(new BigDecimal("92233720368547758.07"), USD));
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> MinorUnitMoney.toMinorUnits(new BigDecimal("92233720368547758.08"), USD));
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> MinorUnitMoney.of(Money.of(new BigDecimal("1E+30"), "USD")));
+    }
+}
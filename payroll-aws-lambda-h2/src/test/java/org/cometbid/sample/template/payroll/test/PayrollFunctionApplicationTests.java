@@ -1,20 +1,35 @@
 package org.cometbid.sample.template.payroll.test;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.lang3.StringUtils;
+import org.cometbid.component.api.employee.exceptions.EmployeeAlreadyExistException;
+import org.cometbid.component.api.employee.exceptions.EmployeeNotFoundException;
 import org.cometbid.sample.template.payroll.it.EmployeeTestBuilder;
 import org.cometbid.sample.template.payroll.employee.CreateEmployeeRequest;
 import org.cometbid.sample.template.payroll.employee.Employee;
+import org.cometbid.sample.template.payroll.employee.EmployeeBatchResult;
+import org.cometbid.sample.template.payroll.employee.EmployeeBatchWriter;
 import org.cometbid.sample.template.payroll.employee.EmployeeBuilder;
-import org.cometbid.sample.template.payroll.employee.EmployeeMapper;
+import org.cometbid.sample.template.payroll.employee.EmployeeChangedEvent;
+import org.cometbid.sample.template.payroll.employee.EmployeeEmailFilter;
+import org.cometbid.sample.template.payroll.employee.EmployeeId;
+import org.cometbid.sample.template.payroll.employee.EmployeeIdAllocator;
 import org.cometbid.sample.template.payroll.employee.EmployeeNameDTO;
 import org.cometbid.sample.template.payroll.employee.EmployeeRepository;
 import org.cometbid.sample.template.payroll.employee.EmployeeService;
 import org.cometbid.sample.template.payroll.employee.EmployeeServiceImpl;
+import org.cometbid.sample.template.payroll.employee.EmployeeState;
 import org.cometbid.sample.template.payroll.employee.EmployeeTypeDTO;
+import org.cometbid.sample.template.payroll.employee.EmployeeVersionTag;
 import org.cometbid.sample.template.payroll.employee.UpdEmployeeRequest;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -22,13 +37,26 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 /**
  *
@@ -41,17 +69,37 @@ class PayrollFunctionApplicationTests {
     @Mock
     private EmployeeRepository employeeRepository;
 
-    private EmployeeBuilder employeeBuilder;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private LocalValidatorFactoryBean validator;
+
+    @Mock
+    private EmployeeBatchWriter batchWriter;
 
-    private EmployeeMapper employeeMapper;
+    @Mock
+    private EmployeeEmailFilter emailFilter;
+
+    @Mock
+    private EmployeeIdAllocator idAllocator;
+
+    private EmployeeBuilder employeeBuilder;
 
     private EmployeeService employeeService;
 
     @BeforeEach
     void init() {
         this.employeeBuilder = Mappers.getMapper(EmployeeBuilder.class);
-        this.employeeMapper = Mappers.getMapper(EmployeeMapper.class);
-        this.employeeService = new EmployeeServiceImpl(employeeRepository, employeeBuilder, employeeMapper);
+        ReflectionTestUtils.setField(employeeBuilder, "idAllocator", idAllocator);
+
+        AtomicLong ids = new AtomicLong();
+        when(idAllocator.nextId()).thenAnswer(invocation -> new EmployeeId(ids.incrementAndGet()));
+        when(idAllocator.nextEmployeeCode(any(Employee.class)))
+                .thenAnswer(invocation -> "EMP" + StringUtils.leftPad(Long.toString(ids.get() + 1), 4, '0'));
+
+        this.employeeService = new EmployeeServiceImpl(employeeRepository, employeeBuilder, eventPublisher,
+                validator, batchWriter, emailFilter);
     }
 
     @DisplayName("create employee")
@@ -59,11 +107,6 @@ class PayrollFunctionApplicationTests {
     void testSaveEmployee() {
         CreateEmployeeRequest emplDto = EmployeeTestBuilder.employee().buildDto();
 
-        Employee mapped = employeeBuilder.toEmployeeEntity(emplDto);
-
-        when(employeeRepository.save(any(Employee.class)))
-                .thenReturn(mapped);
-
         Employee employee = employeeService.saveEmployee(emplDto);
         assertEquals(emplDto.getEmail(), employee.getEmail());
         assertEquals(emplDto.getFirstName(), employee.getFirstName());
@@ -81,6 +124,48 @@ class PayrollFunctionApplicationTests {
         assertNotNull(employee.getId());
         assertNotNull(employee.getCreationDate());
         assertTrue(StringUtils.isNotBlank(employee.getEmployeeId()));
+
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+    @DisplayName("reject employee with a taken email")
+    @Test
+    void testSaveEmployeeWithExistingEmail() {
+        CreateEmployeeRequest emplDto = EmployeeTestBuilder.employee().buildDto();
+
+        when(emailFilter.mightContain(emplDto.getEmail())).thenReturn(true);
+        when(employeeRepository.existsByEmail(emplDto.getEmail())).thenReturn(true);
+
+        assertThrows(EmployeeAlreadyExistException.class, () -> employeeService.saveEmployee(emplDto));
+    }
+
+    @DisplayName("retry a rejected batch chunk row by row")
+    @Test
+    void testSaveEmployeesRetriesRejectedChunkRowByRow() {
+        ReflectionTestUtils.setField(employeeService, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(employeeService, "batchChunkSize", 10);
+
+        List<CreateEmployeeRequest> requests = List.of(EmployeeTestBuilder.employee().buildDto(),
+                EmployeeTestBuilder.employee().buildDto(), EmployeeTestBuilder.employee().buildDto());
+        String takenEmail = requests.get(1).getEmail();
+
+        // the email was taken after the lookup, only the insert finds out
+        doAnswer(invocation -> {
+            List<Employee> employees = invocation.getArgument(0);
+            if (employees.stream().anyMatch(e -> takenEmail.equals(e.getEmail()))) {
+                throw new DataIntegrityViolationException("Unique index violation: UN_EMP_EMAIL_IDX");
+            }
+            return null;
+        }).when(batchWriter).insert(anyList());
+
+        List<EmployeeBatchResult> results = employeeService.saveEmployees(requests);
+
+        assertEquals(EmployeeBatchResult.Status.CREATED, results.get(0).status());
+        assertEquals(EmployeeBatchResult.Status.DUPLICATE, results.get(1).status());
+        assertEquals(EmployeeBatchResult.Status.CREATED, results.get(2).status());
+        assertNotNull(results.get(2).empId());
+        // the chunk, then each of its rows
+        verify(batchWriter, times(4)).insert(anyList());
     }
 
     @DisplayName("update employee")
@@ -93,13 +178,14 @@ class PayrollFunctionApplicationTests {
         when(employeeRepository.save(any(Employee.class)))
                 .thenReturn(employee);
 
-        //Employee employee = employeeBuilder.updateEmployee(emplUpdDto);
-        when(employeeRepository.findByEmployeeIdIgnoreCase(anyString()))
-                .thenReturn(Optional.of(employee));
         // ================ Update begins ================
         UpdEmployeeRequest emplUpdDto = EmployeeTestBuilder.employee().buildUpdDto(employee);
         String employeeId = EmployeeTestBuilder.genEmpId();
 
+        // lookups use the canonical id
+        when(employeeRepository.findByEmployeeId(Employee.normalizeEmployeeId(employeeId)))
+                .thenReturn(Optional.of(employee));
+
         Employee updatedEmployee = employeeService.updateEmployee(emplUpdDto, employeeId);
         assertNotNull(updatedEmployee);
         assertEquals(employee, updatedEmployee);
@@ -120,73 +206,138 @@ class PayrollFunctionApplicationTests {
     @DisplayName("update employee name")
     @Test
     void testUpdateEmployeeName() {
-        // ================= Create begins ==================
-        CreateEmployeeRequest emplDto = EmployeeTestBuilder.employee().buildDto();
+        EmployeeNameDTO emplUpdDto = EmployeeTestBuilder.employee().buildEmpNameUpdDto();
+        String employeeId = EmployeeTestBuilder.genEmpId();
+        String empId = Employee.normalizeEmployeeId(employeeId);
 
-        Employee employee = employeeBuilder.toEmployeeEntity(emplDto);
+        when(employeeRepository.updateNameByEmployeeId(empId, emplUpdDto.getFirstName(),
+                emplUpdDto.getMiddleName(), emplUpdDto.getLastName(), 3L))
+                .thenReturn(1);
 
-        when(employeeRepository.save(any(Employee.class)))
-                .thenReturn(employee);
+        employeeService.updateEmployeeName(emplUpdDto, employeeId, 3L);
 
-        //Employee employee = employeeBuilder.updateEmployee(emplUpdDto);
-        when(employeeRepository.findByEmployeeIdIgnoreCase(anyString()))
-                .thenReturn(Optional.of(employee));
+        ArgumentCaptor<EmployeeChangedEvent> eventCaptor = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+
+        EmployeeState after = eventCaptor.getValue().after();
+        assertEquals(EmployeeChangedEvent.ChangeType.UPDATED, eventCaptor.getValue().changeType());
+        assertEquals(empId, after.employeeId());
+        assertEquals(emplUpdDto.getFirstName(), after.firstName());
+        assertEquals(emplUpdDto.getMiddleName(), after.middleName());
+        assertEquals(emplUpdDto.getLastName(), after.lastName());
+        assertEquals(4L, after.version());
+        verify(employeeRepository, never()).findVersionByEmployeeId(anyString());
+    }
 
-        // ================ Update begins ===================
-        EmployeeNameDTO emplUpdDto = EmployeeTestBuilder.employee().buildEmpNameUpdDto(employee);
+    @DisplayName("update employee name without If-Match")
+    @Test
+    void testUpdateEmployeeNameUnconditionally() {
+        EmployeeNameDTO emplUpdDto = EmployeeTestBuilder.employee().buildEmpNameUpdDto();
         String employeeId = EmployeeTestBuilder.genEmpId();
+        String empId = Employee.normalizeEmployeeId(employeeId);
 
-        Employee updatedEmployee = employeeService.updateEmployeeName(emplUpdDto, employeeId);
-        assertNotNull(updatedEmployee);
-        assertEquals(employee, updatedEmployee);
-        assertNotNull(updatedEmployee.getId());
-        assertNotNull(updatedEmployee.getCreationDate());
-        assertTrue(StringUtils.isNotBlank(updatedEmployee.getEmployeeId()));
+        when(employeeRepository.updateNameByEmployeeId(empId, emplUpdDto.getFirstName(),
+                emplUpdDto.getMiddleName(), emplUpdDto.getLastName(), EmployeeVersionTag.ANY_VERSION))
+                .thenReturn(1);
 
-        assertEquals(emplUpdDto.getFirstName(), updatedEmployee.getFirstName());
-        assertEquals(emplUpdDto.getLastName(), updatedEmployee.getLastName());
-        assertEquals(emplUpdDto.getMiddleName(), updatedEmployee.getMiddleName());
+        employeeService.updateEmployeeName(emplUpdDto, employeeId, EmployeeVersionTag.ANY_VERSION);
 
-        assertNotNull(updatedEmployee.getCreationDate());
+        // the committed version is unknown, listeners invalidate without one
+        ArgumentCaptor<EmployeeChangedEvent> eventCaptor = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(EmployeeVersionTag.ANY_VERSION, eventCaptor.getValue().after().version());
+        verify(employeeRepository, never()).findVersionByEmployeeId(anyString());
+    }
 
-        assertEquals(employee.getId(), updatedEmployee.getId());
-        assertEquals(employee.getCreationDate(), updatedEmployee.getCreationDate());
-        assertEquals(employee.getEmployeeId(), updatedEmployee.getEmployeeId());
-        assertEquals(employee.getEmail(), updatedEmployee.getEmail());
+    @DisplayName("update employee name at a stale version")
+    @Test
+    void testUpdateEmployeeNameConflict() {
+        EmployeeNameDTO emplUpdDto = EmployeeTestBuilder.employee().buildEmpNameUpdDto();
+        String employeeId = EmployeeTestBuilder.genEmpId();
+
+        when(employeeRepository.updateNameByEmployeeId(anyString(), any(), any(), any(), anyLong()))
+                .thenReturn(0);
+        when(employeeRepository.existsByEmployeeId(Employee.normalizeEmployeeId(employeeId)))
+                .thenReturn(true);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> employeeService.updateEmployeeName(emplUpdDto, employeeId, 3L));
+        assertThrows(EmployeeNotFoundException.class,
+                () -> employeeService.updateEmployeeName(emplUpdDto, employeeId, EmployeeVersionTag.ANY_VERSION));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @DisplayName("update employee type")
     @Test
     void testUpdateEmployeeType() {
-        // ================= Create begins ================
-        CreateEmployeeRequest emplDto = EmployeeTestBuilder.employee().buildDto();
+        EmployeeTypeDTO emplUpdDto = EmployeeTestBuilder.employee().buildEmpTypeDto();
+        String employeeId = EmployeeTestBuilder.genEmpId();
+        String empId = Employee.normalizeEmployeeId(employeeId);
 
-        Employee employee = employeeBuilder.toEmployeeEntity(emplDto);
+        when(employeeRepository.updateTypeByEmployeeId(empId, emplUpdDto.getEmployeeType(),
+                emplUpdDto.getSalary().getNumber().numberValue(BigDecimal.class),
+                emplUpdDto.getSalary().getCurrency().getCurrencyCode(), 3L))
+                .thenReturn(1);
 
-        when(employeeRepository.save(any(Employee.class)))
-                .thenReturn(employee);
+        employeeService.updateEmployeeType(emplUpdDto, employeeId, 3L);
 
-        //Employee employee = employeeBuilder.updateEmployee(emplUpdDto);
-        when(employeeRepository.findByEmployeeIdIgnoreCase(anyString()))
-                .thenReturn(Optional.of(employee));
+        ArgumentCaptor<EmployeeChangedEvent> eventCaptor = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
 
-        // ================ Update begins ================
-        EmployeeTypeDTO emplUpdDto = EmployeeTestBuilder.employee().buildEmpTypeDto(employee);
+        EmployeeChangedEvent event = eventCaptor.getValue();
+        assertEquals(empId, event.employeeId());
+        assertNull(event.before());
+        assertEquals(emplUpdDto.getSalary(), event.after().salary());
+        assertEquals(emplUpdDto.getEmployeeType(), event.after().empType());
+        assertEquals(4L, event.after().version());
+    }
+
+    @DisplayName("update employee type at a stale version")
+    @Test
+    void testUpdateEmployeeTypeConflict() {
+        EmployeeTypeDTO emplUpdDto = EmployeeTestBuilder.employee().buildEmpTypeDto();
         String employeeId = EmployeeTestBuilder.genEmpId();
 
-        Employee updatedEmployee = employeeService.updateEmployeeType(emplUpdDto, employeeId);
-        assertNotNull(updatedEmployee);
-        assertEquals(employee, updatedEmployee);
-        assertNotNull(updatedEmployee.getId());
-        assertNotNull(updatedEmployee.getCreationDate());
-        assertTrue(StringUtils.isNotBlank(updatedEmployee.getEmployeeId()));
+        when(employeeRepository.updateTypeByEmployeeId(anyString(), any(), any(), any(), anyLong()))
+                .thenReturn(0);
+        when(employeeRepository.existsByEmployeeId(Employee.normalizeEmployeeId(employeeId)))
+                .thenReturn(true);
 
-        assertEquals(emplUpdDto.getSalary(), updatedEmployee.getSalary());
-        assertEquals(emplUpdDto.getEmployeeType(), updatedEmployee.getEmpType());
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> employeeService.updateEmployeeType(emplUpdDto, employeeId, 3L));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
 
-        assertEquals(employee.getId(), updatedEmployee.getId());
-        assertEquals(employee.getCreationDate(), updatedEmployee.getCreationDate());
-        assertEquals(employee.getEmployeeId(), updatedEmployee.getEmployeeId());
-        assertEquals(employee.getEmail(), updatedEmployee.getEmail());
+    @DisplayName("delete employees")
+    @Test
+    void testDeleteEmployees() {
+        String employeeId = EmployeeTestBuilder.genEmpId();
+        String empId = Employee.normalizeEmployeeId(employeeId);
+
+        String unknown = Employee.normalizeEmployeeId("unknown");
+
+        when(employeeRepository.deleteAllByEmployeeIdIn(anyCollection())).thenReturn(1);
+
+        assertEquals(1, employeeService.deleteEmployees(List.of(employeeId, "unknown", employeeId)));
+        verify(employeeRepository).deleteAllByEmployeeIdIn(Set.of(empId, unknown));
+
+        ArgumentCaptor<EmployeeChangedEvent> eventCaptor = ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(eventCaptor.capture());
+        assertEquals(List.of(empId, unknown), eventCaptor.getAllValues().stream()
+                .map(EmployeeChangedEvent::employeeId).toList());
+        eventCaptor.getAllValues().forEach(event -> {
+            assertEquals(EmployeeChangedEvent.ChangeType.DELETED, event.changeType());
+            assertNull(event.before());
+        });
+    }
+
+    @DisplayName("delete unknown employee")
+    @Test
+    void testDeleteUnknownEmployee() {
+        when(employeeRepository.deleteAllByEmployeeIdIn(anyCollection())).thenReturn(0);
+
+        assertThrows(EmployeeNotFoundException.class, () -> employeeService.deleteEmployee("unknown"));
+        verify(employeeRepository).deleteAllByEmployeeIdIn(List.of(Employee.normalizeEmployeeId("unknown")));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 }
@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.cometbid.sample.template.payroll.run.PayrollRuleProperties;
+import org.cometbid.sample.template.payroll.run.PayrollRules;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class PayrollRulesTest {
+
+    private static final CurrencyFactory.Currency USD = CurrencyFactory.Currency.USD;
+    private static final CurrencyFactory.Currency JPY = CurrencyFactory.Currency.JPY;
+
+    // lower bounds in major units and rates in basis points
+    private static final String[] BOUNDS = {"0", "1000.00", "4000.00", "8500.00"};
+    private static final int[] RATES = {1000, 1200, 2200, 2400};
+
+    @Test
+    public void testTaxMatchesDecimalReference() {
+        PayrollRules rules = PayrollRules.compile(List.of(rule("USD", "FULL-TIME")));
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long grossPay = random.nextLong(2_000_000);
+
+            Assertions.assertEquals(referenceTax(grossPay), rules.tax(EmployeeType.FULL_TIME, USD, grossPay),
+                    "gross pay " + grossPay);
+        }
+        // exactly on a bound
+        Assertions.assertEquals(10_000, rules.tax(EmployeeType.FULL_TIME, USD, 100_000));
+    }
+
+    @Test
+    public void testDeductionsAreCappedAndFixedAmountsAdded() {
+        PayrollRuleProperties.Rule rule = rule("USD", "FULL-TIME");
+        rule.getDeductions().add(deduction(620, new BigDecimal("100.00"), null));
+        rule.getDeductions().add(deduction(0, null, new BigDecimal("150.00")));
+
+        PayrollRules rules = PayrollRules.compile(List.of(rule));
+
+        // 6.2% of 1000.00 is 62.00, under the cap
+        Assertions.assertEquals(10_000 + 6_200 + 15_000, rules.deductions(EmployeeType.FULL_TIME, USD, 100_000));
+        // 6.2% of 5000.00 is 310.00, capped at 100.00
+        Assertions.assertEquals(referenceTax(500_000) + 10_000 + 15_000,
+                rules.deductions(EmployeeType.FULL_TIME, USD, 500_000));
+    }
+
+    @Test
+    public void testRulesApplyPerCurrencyAndType() {
+        PayrollRules rules = PayrollRules.compile(List.of(rule("USD", "FULL-TIME"), rule("JPY", "CONTRACT")));
+
+        Assertions.assertTrue(rules.covers(EmployeeType.FULL_TIME, USD));
+        Assertions.assertFalse(rules.covers(EmployeeType.PART_TIME, USD));
+        Assertions.assertEquals(0, rules.deductions(EmployeeType.PART_TIME, USD, 100_000));
+
+        // JPY has no minor unit: 1000 yen is the second bound
+        Assertions.assertEquals(100, rules.tax(EmployeeType.CONTRACT, JPY, 1_000));
+    }
+
+    @Test
+    public void testInvalidRulesAreRejected() {
+        PayrollRuleProperties.Rule unsorted = rule("USD", "FULL-TIME");
+        unsorted.getTaxBrackets().get(2).setFrom(new BigDecimal("500.00"));
+        Assertions.assertThrows(IllegalStateException.class, () -> PayrollRules.compile(List.of(unsorted)));
+
+        PayrollRuleProperties.Rule rate = rule("USD", "FULL-TIME");
+        rate.getTaxBrackets().get(0).setRateBps(10_001);
+        Assertions.assertThrows(IllegalStateException.class, () -> PayrollRules.compile(List.of(rate)));
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> PayrollRules.compile(List.of(rule("USD", "FULL-TIME"), rule("USD", "FULL-TIME"))));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> PayrollRules.compile(List.of(rule("ABC", "FULL-TIME"))));
+    }
+
+    /**
+     * Marginal tax computed bracket by bracket with decimals.
+     */
+    private static long referenceTax(long grossPay) {
+        BigDecimal gross = BigDecimal.valueOf(grossPay);
+        BigDecimal tax = BigDecimal.ZERO;
+
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BigDecimal lower = new BigDecimal(BOUNDS[i]).movePointRight(2);
+            BigDecimal upper = i + 1 < BOUNDS.length ? new BigDecimal(BOUNDS[i + 1]).movePointRight(2) : gross;
+
+            if (gross.compareTo(lower) <= 0) {
+                break;
+            }
+            BigDecimal taxed = gross.min(upper).subtract(lower);
+            tax = tax.add(taxed.multiply(BigDecimal.valueOf(RATES[i])));
+        }
+        return tax.movePointLeft(4).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+
+    private static PayrollRuleProperties.Rule rule(String currency, String employeeType) {
+        PayrollRuleProperties.Rule rule = new PayrollRuleProperties.Rule();
+        rule.setCurrency(currency);
+        rule.setEmployeeType(employeeType);
+
+        for (int i = 0; i < BOUNDS.length; i++) {
+            PayrollRuleProperties.TaxBracket bracket = new PayrollRuleProperties.TaxBracket();
+            bracket.setFrom(new BigDecimal(BOUNDS[i]));
+            bracket.setRateBps(RATES[i]);
+            rule.getTaxBrackets().add(bracket);
+        }
+        return rule;
+    }
+
+    private static PayrollRuleProperties.Deduction deduction(int rateBps, BigDecimal cap, BigDecimal fixed) {
+        PayrollRuleProperties.Deduction deduction = new PayrollRuleProperties.Deduction();
+        deduction.setRateBps(rateBps);
+        deduction.setCap(cap);
+        deduction.setFixed(fixed);
+        return deduction;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.cometbid.sample.template.payroll.config.CurrencyFactory;
+import org.cometbid.sample.template.payroll.employee.EmployeeType;
+import org.cometbid.sample.template.payroll.run.PayCalculator;
+import org.cometbid.sample.template.payroll.run.PayrollRunActiveException;
+import org.cometbid.sample.template.payroll.run.PayrollRunEngine;
+import org.cometbid.sample.template.payroll.run.PayrollRunReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class PayrollRunEngineTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private PayrollRunEngine engine;
+
+    @BeforeEach
+    public void createSchema() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:payroll-run;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("RUNSCRIPT FROM 'classpath:schema.sql'");
+
+        insertEmployee(1, "EMP0001", "FULL-TIME", "120000.00", "USD");
+        insertEmployee(2, "EMP0002", "CONTRACT", "60000.00", "EUR");
+    }
+
+    @AfterEach
+    public void dropSchema() {
+        if (engine != null) {
+            engine.shutdown();
+        }
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void testNetPayIsNeverNegative() {
+        // withholds twice the gross pay
+        engine = newEngine(new FixedPayCalculator(null, 20_000));
+
+        PayrollRunReport report = engine.run();
+
+        Assertions.assertEquals(2, report.employees());
+        List<Map<String, Object>> results = jdbcTemplate.queryForList(
+                "SELECT gross_minor, deductions_minor, net_minor FROM payroll_result ORDER BY employee_pk");
+        Assertions.assertEquals(1_000_000L, results.get(0).get("GROSS_MINOR"));
+        Assertions.assertEquals(1_000_000L, results.get(0).get("DEDUCTIONS_MINOR"));
+        Assertions.assertEquals(0L, results.get(0).get("NET_MINOR"));
+        Assertions.assertEquals(0L, results.get(1).get("NET_MINOR"));
+    }
+
+    @Test
+    public void testConcurrentRunIsRejected() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        engine = newEngine(new FixedPayCalculator(() -> {
+            computing.countDown();
+            await(release);
+        }, 1_000));
+
+        CompletableFuture<PayrollRunReport> first = CompletableFuture.supplyAsync(engine::run);
+        Assertions.assertTrue(computing.await(10, TimeUnit.SECONDS));
+
+        Assertions.assertThrows(PayrollRunActiveException.class, engine::run);
+
+        release.countDown();
+        Assertions.assertEquals(2, first.get(10, TimeUnit.SECONDS).employees());
+    }
+
+    private PayrollRunEngine newEngine(PayCalculator payCalculator) {
+        return new PayrollRunEngine(dataSource, new DataSourceTransactionManager(dataSource), payCalculator, 100, 1);
+    }
+
+    private void insertEmployee(long id, String employeeId, String type, String salary, String currency) {
+        jdbcTemplate.update("INSERT INTO employee (id, employee_id, first_name, last_name, email, employee_type, "
+                + "sal_amount, sal_currency) VALUES (?, ?, 'First', 'Last', ?, ?, ?, ?)",
+                id, employeeId, employeeId.toLowerCase(Locale.ROOT) + "@example.com", type, new BigDecimal(salary),
+                currency);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Twelve pay periods, a fixed withholding rate in basis points.
+     */
+    private static final class FixedPayCalculator implements PayCalculator {
+
+        private final Runnable onGrossPay;
+        private final long withholdingBps;
+
+        FixedPayCalculator(Runnable onGrossPay, long withholdingBps) {
+            this.onGrossPay = onGrossPay;
+            this.withholdingBps = withholdingBps;
+        }
+
+        @Override
+        public long grossPay(EmployeeType type, CurrencyFactory.Currency currency, long annualSalary) {
+            if (onGrossPay != null) {
+                onGrossPay.run();
+            }
+            return annualSalary / 12;
+        }
+
+        @Override
+        public long deductions(EmployeeType type, CurrencyFactory.Currency currency, long grossPay) {
+            return grossPay * withholdingBps / 10_000;
+        }
+    }
+}
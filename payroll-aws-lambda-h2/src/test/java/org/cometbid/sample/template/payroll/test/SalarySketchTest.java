@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.cometbid.sample.template.payroll.employee.SalarySketch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class SalarySketchTest {
+
+    private static final double ACCURACY = 0.01;
+    private static final double[] QUANTILES = {0, 0.5, 0.9, 0.99, 1};
+
+    @Test
+    public void testQuantilesWithinRelativeAccuracy() {
+        long[] salaries = salaries(new Random(42), 200_000);
+        SalarySketch sketch = sketchOf(salaries, 0, salaries.length);
+
+        assertWithinAccuracy(salaries, sketch);
+        Assertions.assertTrue(sketch.memoryBytes() < 16 * 1024);
+    }
+
+    @Test
+    public void testMergedSketchesEqualSingleSketch() {
+        long[] salaries = salaries(new Random(7), 50_000);
+        SalarySketch merged = sketchOf(salaries, 0, 20_000);
+        merged.merge(sketchOf(salaries, 20_000, salaries.length));
+
+        SalarySketch single = sketchOf(salaries, 0, salaries.length);
+        Assertions.assertEquals(single.getCount(), merged.getCount());
+        for (double q : QUANTILES) {
+            Assertions.assertEquals(single.quantile(q), merged.quantile(q), "quantile " + q);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> merged.merge(new SalarySketch(0.02)));
+    }
+
+    @Test
+    public void testRemovedSalariesNoLongerCount() {
+        long[] salaries = salaries(new Random(11), 10_000);
+        SalarySketch sketch = sketchOf(salaries, 0, salaries.length);
+
+        for (int i = 5_000; i < salaries.length; i++) {
+            Assertions.assertTrue(sketch.remove(salaries[i]));
+        }
+        Assertions.assertEquals(5_000, sketch.getCount());
+        assertWithinAccuracy(Arrays.copyOf(salaries, 5_000), sketch);
+
+        Assertions.assertFalse(new SalarySketch(ACCURACY).remove(100));
+        Assertions.assertEquals(-1, new SalarySketch(ACCURACY).quantile(0.5));
+    }
+
+    @Test
+    public void testSerializedSketchRoundTrips() {
+        long[] salaries = salaries(new Random(3), 10_000);
+        SalarySketch sketch = sketchOf(salaries, 0, salaries.length);
+        sketch.add(0);
+
+        SalarySketch copy = SalarySketch.deserialize(sketch.serialize());
+        Assertions.assertEquals(sketch.getCount(), copy.getCount());
+        Assertions.assertEquals(sketch.getRelativeAccuracy(), copy.getRelativeAccuracy());
+        for (double q : QUANTILES) {
+            Assertions.assertEquals(sketch.quantile(q), copy.quantile(q), "quantile " + q);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SalarySketch.deserialize(new byte[]{1, 2}));
+
+        SalarySketch empty = SalarySketch.deserialize(new SalarySketch(ACCURACY).serialize());
+        Assertions.assertEquals(0, empty.getCount());
+    }
+
+    @Test
+    public void testCraftedSketchesAreRejected() throws IOException {
+        // buckets far outside the index range would grow a merge target to gigabytes
+        assertRejected(serialized(ACCURACY, 0, Integer.MAX_VALUE - 1, 1L, 1L));
+        assertRejected(serialized(ACCURACY, 0, -5, 1L));
+        assertRejected(serialized(ACCURACY, 0, 2180, 1L, 1L, 1L, 1L, 1L, 1L));
+        // negative and overflowing counts
+        assertRejected(serialized(ACCURACY, -1, 100, 1L));
+        assertRejected(serialized(ACCURACY, 0, 100, 5L, -1L));
+        assertRejected(serialized(ACCURACY, Long.MAX_VALUE, 100, 1L));
+        // accuracy out of range or too fine for the bucket limit
+        assertRejected(serialized(0, 0, 0));
+        assertRejected(serialized(Double.NaN, 0, 0));
+        assertRejected(serialized(1e-6, 0, 0));
+
+        SalarySketch valid = SalarySketch.deserialize(serialized(ACCURACY, 2, 100, 3L, 0L, 4L));
+        Assertions.assertEquals(9, valid.getCount());
+
+        SalarySketch full = SalarySketch.deserialize(serialized(ACCURACY, Long.MAX_VALUE - 1, 100, 1L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> full.merge(valid));
+        Assertions.assertEquals(Long.MAX_VALUE, full.getCount());
+    }
+
+    private static void assertRejected(byte[] serialized) {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SalarySketch.deserialize(serialized));
+    }
+
+    private static byte[] serialized(double accuracy, long zeroCount, int offset, long... counts) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(1);
+            out.writeDouble(accuracy);
+            out.writeLong(zeroCount);
+            out.writeInt(offset);
+            out.writeInt(counts.length);
+            for (long count : counts) {
+                out.writeLong(count);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void assertWithinAccuracy(long[] salaries, SalarySketch sketch) {
+        long[] sorted = salaries.clone();
+        Arrays.sort(sorted);
+
+        for (double q : QUANTILES) {
+            long exact = sorted[(int) (q * (sorted.length - 1))];
+            long estimate = sketch.quantile(q);
+            // one minor unit for rounding the estimate
+            Assertions.assertTrue(Math.abs(estimate - exact) <= exact * ACCURACY + 1,
+                    "quantile " + q + ": " + estimate + " for " + exact);
+        }
+    }
+
+    private static SalarySketch sketchOf(long[] salaries, int from, int to) {
+        SalarySketch sketch = new SalarySketch(ACCURACY);
+        for (int i = from; i < to; i++) {
+            sketch.add(salaries[i]);
+        }
+        return sketch;
+    }
+
+    // log-normal around 60,000.00 in minor units
+    private static long[] salaries(Random random, int count) {
+        long[] salaries = new long[count];
+        for (int i = 0; i < count; i++) {
+            salaries[i] = Math.round(Math.exp(Math.log(6_000_000) + 0.6 * random.nextGaussian()));
+        }
+        return salaries;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 samueladebowale.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.cometbid.sample.template.payroll.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.cometbid.sample.template.payroll.employee.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author samueladebowale
+ */
+public class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 64;
+    private static final int IDS_PER_THREAD = 20_000;
+
+    @Test
+    public void testUniqueUnderContention() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+
+                    long previous = Long.MIN_VALUE;
+                    boolean increasing = true;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        long id = generator.nextId();
+
+                        increasing &= id > previous;
+                        previous = id;
+                        ids.add(id);
+                    }
+                    return increasing;
+                }));
+            }
+
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                Assertions.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+    }
+
+    @Test
+    public void testClockGoingBackwards() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-500);
+        long after = generator.nextId();
+
+        Assertions.assertTrue(after > before);
+    }
+
+    @Test
+    public void testSequenceOverflowRunsAhead() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> SnowflakeIdGenerator.EPOCH + 1_000);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            Assertions.assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testReseedAfterRestore() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, () -> SnowflakeIdGenerator.EPOCH + 1_000);
+        long id = generator.nextId();
+
+        generator.reseed(4);
+
+        Assertions.assertEquals(3, (id >>> 12) & SnowflakeIdGenerator.MAX_WORKER_ID);
+        Assertions.assertEquals(4, (generator.nextId() >>> 12) & SnowflakeIdGenerator.MAX_WORKER_ID);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> generator.reseed(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+}